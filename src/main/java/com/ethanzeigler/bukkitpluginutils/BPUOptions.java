@@ -1,5 +1,14 @@
 package com.ethanzeigler.bukkitpluginutils;
 
+import com.ethanzeigler.bukkitpluginutils.data.PlayerDataCodec;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerStorageType;
+import com.ethanzeigler.bukkitpluginutils.data.YamlPlayerDataCodec;
+import com.ethanzeigler.bukkitpluginutils.scheduler.AsyncExecutor;
+import com.ethanzeigler.bukkitpluginutils.scheduler.RejectionPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Holds the optins of the API
  */
@@ -13,6 +22,25 @@ public class BPUOptions {
     private String changelog;
     private long ticksBetweenUpdateChecks = 864000L;
     private boolean isUpdateInstalledMessageOn = true;
+    private long ticksBetweenPlayerFileFlushes = 100L;
+    private long ticksBeforePlayerFileEviction = 6000L;
+    private int maxCachedOfflinePlayerFiles = 500;
+    private boolean isPlayerFilePreloadOn = false;
+    private PlayerStorageType playerStorageType = PlayerStorageType.DIRECTORY;
+    private PlayerDataCodec playerDataCodec = new YamlPlayerDataCodec();
+    private int maxPlayerFileDeltas = 16;
+    private List<String> hashIndexedPaths = new ArrayList<>();
+    private List<String> sortedIndexedPaths = new ArrayList<>();
+    private int playerLockStripes = 64;
+    private long syncWorkMicrosPerTick = 5000L;
+    private int asyncThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private int asyncQueueCapacity = 1024;
+    private RejectionPolicy asyncRejectionPolicy = RejectionPolicy.CALLER_RUNS;
+    private long asyncBlockTimeoutMillis = 1000L;
+    private boolean isAsyncVirtualThreadsOn = false;
+    private boolean isAsyncExecutorShared = false;
+    private boolean isSchedulerMetricsOn = false;
+    private long stallThresholdMillis = 0L;
 
     public BPUOptions(String pluginName ) {
         updateInstalledMessage = pluginName + " has updated. Here's what changed: ";
@@ -197,4 +225,389 @@ public class BPUOptions {
             isUpdateInstalledMessageOn = updateInstalledMessageOn;
         }
     }
+
+    /**
+     * Gets the number of ticks between writes of changed player files to disk.
+     * @return the number of ticks between player file flushes
+     */
+    public long getTicksBetweenPlayerFileFlushes() {
+        return ticksBetweenPlayerFileFlushes;
+    }
+
+    /**
+     * Sets the number of ticks between writes of changed player files to disk. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param ticksBetweenPlayerFileFlushes the number of ticks between player file flushes
+     */
+    public void setTicksBetweenPlayerFileFlushes(Long ticksBetweenPlayerFileFlushes) {
+        if (!isNull(ticksBetweenPlayerFileFlushes)) {
+            this.ticksBetweenPlayerFileFlushes = ticksBetweenPlayerFileFlushes;
+        }
+    }
+
+    /**
+     * Gets the number of ticks an offline player's file stays in memory after it was last used.
+     * @return the number of idle ticks before an offline player's file is evicted
+     */
+    public long getTicksBeforePlayerFileEviction() {
+        return ticksBeforePlayerFileEviction;
+    }
+
+    /**
+     * Sets the number of ticks an offline player's file stays in memory after it was last used. This must be set
+     * before {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param ticksBeforePlayerFileEviction the number of idle ticks before an offline player's file is evicted
+     */
+    public void setTicksBeforePlayerFileEviction(Long ticksBeforePlayerFileEviction) {
+        if (!isNull(ticksBeforePlayerFileEviction)) {
+            this.ticksBeforePlayerFileEviction = ticksBeforePlayerFileEviction;
+        }
+    }
+
+    /**
+     * Gets the maximum number of offline players' files kept in memory.
+     * @return the maximum number of cached offline player files
+     */
+    public int getMaxCachedOfflinePlayerFiles() {
+        return maxCachedOfflinePlayerFiles;
+    }
+
+    /**
+     * Sets the maximum number of offline players' files kept in memory. When there are more, the least recently used
+     * are evicted first. This must be set before {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param maxCachedOfflinePlayerFiles the maximum number of cached offline player files
+     */
+    public void setMaxCachedOfflinePlayerFiles(Integer maxCachedOfflinePlayerFiles) {
+        if (!isNull(maxCachedOfflinePlayerFiles)) {
+            this.maxCachedOfflinePlayerFiles = maxCachedOfflinePlayerFiles;
+        }
+    }
+
+    /**
+     * Gets whether player files are loaded in the background while players log in.
+     * @return whether player file preloading is enabled
+     */
+    public boolean isPlayerFilePreloadOn() {
+        return isPlayerFilePreloadOn;
+    }
+
+    /**
+     * Sets whether player files are loaded in the background while players log in, so they are already in memory
+     * when {@link org.bukkit.event.player.PlayerJoinEvent} fires. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param playerFilePreloadOn whether player file preloading is enabled
+     */
+    public void setPlayerFilePreloadEnabled(Boolean playerFilePreloadOn) {
+        if (!isNull(playerFilePreloadOn)) {
+            isPlayerFilePreloadOn = playerFilePreloadOn;
+        }
+    }
+
+    /**
+     * Gets how player files are stored on disk.
+     * @return the player storage type
+     */
+    public PlayerStorageType getPlayerStorageType() {
+        return playerStorageType;
+    }
+
+    /**
+     * Sets how player files are stored on disk. When switching to {@link PlayerStorageType#INDEXED}, existing files in
+     * the Player Files directory are migrated on the next start. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param playerStorageType the player storage type
+     */
+    public void setPlayerStorageType(PlayerStorageType playerStorageType) {
+        if (!isNull(playerStorageType)) {
+            this.playerStorageType = playerStorageType;
+        }
+    }
+
+    /**
+     * Gets the codec player files are encoded with.
+     * @return the player data codec
+     */
+    public PlayerDataCodec getPlayerDataCodec() {
+        return playerDataCodec;
+    }
+
+    /**
+     * Sets the codec player files are encoded with. Both built in codecs read each other's data, so this can be
+     * changed at any time; files are converted as they are saved. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param playerDataCodec the player data codec
+     * @see com.ethanzeigler.bukkitpluginutils.data.BinaryPlayerDataCodec
+     */
+    public void setPlayerDataCodec(PlayerDataCodec playerDataCodec) {
+        if (!isNull(playerDataCodec)) {
+            this.playerDataCodec = playerDataCodec;
+        }
+    }
+
+    /**
+     * Gets the number of partial saves kept for a player before their whole file is written again. Only used by stores
+     * that support partial saves.
+     * @return the maximum number of partial saves per player
+     */
+    public int getMaxPlayerFileDeltas() {
+        return maxPlayerFileDeltas;
+    }
+
+    /**
+     * Sets the number of partial saves kept for a player before their whole file is written again. Only used by stores
+     * that support partial saves. Set this to 0 to always write whole files. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param maxPlayerFileDeltas the maximum number of partial saves per player
+     */
+    public void setMaxPlayerFileDeltas(Integer maxPlayerFileDeltas) {
+        if (!isNull(maxPlayerFileDeltas)) {
+            this.maxPlayerFileDeltas = maxPlayerFileDeltas;
+        }
+    }
+
+    /**
+     * Gets the player file paths that have a hash index, for finding players by value.
+     * @return the hash indexed paths
+     */
+    public List<String> getHashIndexedPaths() {
+        return hashIndexedPaths;
+    }
+
+    /**
+     * Sets the player file paths that have a hash index, for finding players by value. Indexes are built in the
+     * background the first time they are used. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param hashIndexedPaths the hash indexed paths
+     * @see BukkitUtilPlugin#getHashIndex(String)
+     */
+    public void setHashIndexedPaths(List<String> hashIndexedPaths) {
+        if (!isNull(hashIndexedPaths)) {
+            this.hashIndexedPaths = hashIndexedPaths;
+        }
+    }
+
+    /**
+     * Gets the player file paths that have a sorted index, for range queries and leaderboards.
+     * @return the sorted indexed paths
+     */
+    public List<String> getSortedIndexedPaths() {
+        return sortedIndexedPaths;
+    }
+
+    /**
+     * Sets the player file paths that have a sorted index, for range queries and leaderboards. Only numbers are
+     * indexed. Indexes are built in the background the first time they are used. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param sortedIndexedPaths the sorted indexed paths
+     * @see BukkitUtilPlugin#getSortedIndex(String)
+     */
+    public void setSortedIndexedPaths(List<String> sortedIndexedPaths) {
+        if (!isNull(sortedIndexedPaths)) {
+            this.sortedIndexedPaths = sortedIndexedPaths;
+        }
+    }
+
+    /**
+     * Gets the number of locks player files are spread over.
+     * @return the number of player lock stripes
+     */
+    public int getPlayerLockStripes() {
+        return playerLockStripes;
+    }
+
+    /**
+     * Sets the number of locks player files are spread over. More stripes mean fewer players share a lock, so
+     * unrelated players wait on each other less. The number is rounded up to a power of two. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param playerLockStripes the number of player lock stripes
+     */
+    public void setPlayerLockStripes(Integer playerLockStripes) {
+        if (!isNull(playerLockStripes)) {
+            this.playerLockStripes = playerLockStripes;
+        }
+    }
+
+    /**
+     * Gets the most time work queued with {@link BukkitUtilPlugin#submitSync(Runnable)} may take each tick.
+     * @return the budget in microseconds
+     */
+    public long getSyncWorkMicrosPerTick() {
+        return syncWorkMicrosPerTick;
+    }
+
+    /**
+     * Sets the most time work queued with {@link BukkitUtilPlugin#submitSync(Runnable)} may take each tick. Work left
+     * over is carried to the next tick. A tick is 50,000 microseconds. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param syncWorkMicrosPerTick the budget in microseconds
+     */
+    public void setSyncWorkMicrosPerTick(Long syncWorkMicrosPerTick) {
+        if (!isNull(syncWorkMicrosPerTick)) {
+            this.syncWorkMicrosPerTick = syncWorkMicrosPerTick;
+        }
+    }
+
+    /**
+     * Gets the most tasks queued with {@link BukkitUtilPlugin#runAsynchronously(Runnable)} that may run at once.
+     * @return the number of async threads
+     */
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    /**
+     * Sets the most tasks queued with {@link BukkitUtilPlugin#runAsynchronously(Runnable)} that may run at once. This
+     * must be set before {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param asyncThreads the number of async threads
+     */
+    public void setAsyncThreads(Integer asyncThreads) {
+        if (!isNull(asyncThreads)) {
+            this.asyncThreads = asyncThreads;
+        }
+    }
+
+    /**
+     * Gets the most async tasks that may wait for a thread before the rejection policy applies.
+     * @return the async queue capacity
+     */
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    /**
+     * Sets the most async tasks that may wait for a thread before the rejection policy applies. This must be set
+     * before {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param asyncQueueCapacity the async queue capacity
+     */
+    public void setAsyncQueueCapacity(Integer asyncQueueCapacity) {
+        if (!isNull(asyncQueueCapacity)) {
+            this.asyncQueueCapacity = asyncQueueCapacity;
+        }
+    }
+
+    /**
+     * Gets what happens to async tasks when every thread is busy and the queue is full.
+     * @return the async rejection policy
+     */
+    public RejectionPolicy getAsyncRejectionPolicy() {
+        return asyncRejectionPolicy;
+    }
+
+    /**
+     * Sets what happens to async tasks when every thread is busy and the queue is full. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called. The default, {@link RejectionPolicy#CALLER_RUNS},
+     * hands tasks the main thread submits to a full executor to Bukkit's unbounded async scheduler, so it does not
+     * bound them; see {@link RejectionPolicy#CALLER_RUNS}.
+     * @param asyncRejectionPolicy the async rejection policy
+     */
+    public void setAsyncRejectionPolicy(RejectionPolicy asyncRejectionPolicy) {
+        if (!isNull(asyncRejectionPolicy)) {
+            this.asyncRejectionPolicy = asyncRejectionPolicy;
+        }
+    }
+
+    /**
+     * Gets how long {@link RejectionPolicy#BLOCK} waits for room in the async queue.
+     * @return the timeout in milliseconds
+     */
+    public long getAsyncBlockTimeoutMillis() {
+        return asyncBlockTimeoutMillis;
+    }
+
+    /**
+     * Sets how long {@link RejectionPolicy#BLOCK} waits for room in the async queue before giving up. This must be
+     * set before {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param asyncBlockTimeoutMillis the timeout in milliseconds
+     */
+    public void setAsyncBlockTimeoutMillis(Long asyncBlockTimeoutMillis) {
+        if (!isNull(asyncBlockTimeoutMillis)) {
+            this.asyncBlockTimeoutMillis = asyncBlockTimeoutMillis;
+        }
+    }
+
+    /**
+     * Gets whether async tasks run on virtual threads when the server's JVM supports them.
+     * @return whether virtual threads are requested
+     */
+    public boolean isAsyncVirtualThreadsOn() {
+        return isAsyncVirtualThreadsOn;
+    }
+
+    /**
+     * Sets whether async tasks run on virtual threads when the server's JVM supports them (Java 21 or later). Older
+     * JVMs use a thread pool either way. This must be set before {@link BukkitUtilPlugin#initializeBPUResources()} is
+     * called.
+     * @param asyncVirtualThreadsOn whether to use virtual threads
+     */
+    public void setAsyncVirtualThreadsEnabled(Boolean asyncVirtualThreadsOn) {
+        if (!isNull(asyncVirtualThreadsOn)) {
+            isAsyncVirtualThreadsOn = asyncVirtualThreadsOn;
+        }
+    }
+
+    /**
+     * Gets whether async tasks share one executor with every other BPU plugin that shares it.
+     * @return whether the async executor is shared
+     */
+    public boolean isAsyncExecutorShared() {
+        return isAsyncExecutorShared;
+    }
+
+    /**
+     * Sets whether async tasks share one executor with every other BPU plugin that shares it, rather than using one
+     * of this plugin's own. The first plugin to use the shared executor decides its limits. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param asyncExecutorShared whether to share the async executor
+     */
+    public void setAsyncExecutorShared(Boolean asyncExecutorShared) {
+        if (!isNull(asyncExecutorShared)) {
+            isAsyncExecutorShared = asyncExecutorShared;
+        }
+    }
+
+    /**
+     * Gets whether runnables scheduled through the plugin are timed.
+     * @return whether scheduler metrics are on
+     */
+    public boolean isSchedulerMetricsOn() {
+        return isSchedulerMetricsOn;
+    }
+
+    /**
+     * Sets whether runnables scheduled through the plugin are timed from startup. Metrics can also be turned on and
+     * off later through {@link BukkitUtilPlugin#getSchedulerMetrics()}.
+     * @param schedulerMetricsOn whether scheduler metrics are on
+     */
+    public void setSchedulerMetricsEnabled(Boolean schedulerMetricsOn) {
+        if (!isNull(schedulerMetricsOn)) {
+            isSchedulerMetricsOn = schedulerMetricsOn;
+        }
+    }
+
+    /**
+     * Gets how long a runnable scheduled with {@link BukkitUtilPlugin#runSynchronously(Runnable)} may run before the
+     * main thread's stack is sampled.
+     * @return the stall threshold in milliseconds, or 0 if stalls are not watched for
+     */
+    public long getStallThresholdMillis() {
+        return stallThresholdMillis;
+    }
+
+    /**
+     * Sets how long a runnable scheduled with {@link BukkitUtilPlugin#runSynchronously(Runnable)} may run before the
+     * main thread's stack is sampled. Stalls are logged and written to {@code BukkitPluginUtils/stalls.folded} for
+     * flame graph tools. 0 turns the watchdog off. This must be set before
+     * {@link BukkitUtilPlugin#initializeBPUResources()} is called.
+     * @param stallThresholdMillis the stall threshold in milliseconds
+     */
+    public void setStallThresholdMillis(Long stallThresholdMillis) {
+        if (!isNull(stallThresholdMillis)) {
+            this.stallThresholdMillis = stallThresholdMillis;
+        }
+    }
+
+    AsyncExecutor.Options getAsyncExecutorOptions() {
+        return new AsyncExecutor.Options(asyncThreads, asyncQueueCapacity, asyncRejectionPolicy,
+                asyncBlockTimeoutMillis, isAsyncVirtualThreadsOn);
+    }
 }
@@ -1,10 +1,44 @@
 package com.ethanzeigler.bukkitpluginutils;
 
+import com.ethanzeigler.bukkitpluginutils.config.ConfigBinder;
+import com.ethanzeigler.bukkitpluginutils.config.ConfigBinding;
+import com.ethanzeigler.bukkitpluginutils.config.ConfigurationCache;
+import com.ethanzeigler.bukkitpluginutils.config.SaveStatistics;
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import com.ethanzeigler.bukkitpluginutils.data.DirectoryPlayerDataStore;
+import com.ethanzeigler.bukkitpluginutils.diagnostics.SchedulerMetrics;
+import com.ethanzeigler.bukkitpluginutils.diagnostics.StallWatchdog;
+import com.ethanzeigler.bukkitpluginutils.diagnostics.StartupProfiler;
+import com.ethanzeigler.bukkitpluginutils.data.HashPlayerDataIndex;
+import com.ethanzeigler.bukkitpluginutils.data.IndexedPlayerDataStore;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerDataIndex;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerDataIndexes;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerDataQuery;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerDataScanner;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerDataStore;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerFileCache;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerFileSnapshot;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerFilePreloader;
+import com.ethanzeigler.bukkitpluginutils.data.PlayerStorageType;
+import com.ethanzeigler.bukkitpluginutils.data.SortedPlayerDataIndex;
+import com.ethanzeigler.bukkitpluginutils.data.StripedPlayerLocks;
+import com.ethanzeigler.bukkitpluginutils.io.GroupCommitWriter;
 import com.ethanzeigler.bukkitpluginutils.language.LanguageManager;
+import com.ethanzeigler.bukkitpluginutils.scheduler.AsyncExecutor;
+import com.ethanzeigler.bukkitpluginutils.scheduler.FutureTracker;
+import com.ethanzeigler.bukkitpluginutils.scheduler.KeyedSerialExecutor;
+import com.ethanzeigler.bukkitpluginutils.scheduler.MainThreadDispatcher;
+import com.ethanzeigler.bukkitpluginutils.scheduler.PluginExecutor;
+import com.ethanzeigler.bukkitpluginutils.scheduler.RejectionPolicy;
+import com.ethanzeigler.bukkitpluginutils.scheduler.TaskPriority;
+import com.ethanzeigler.bukkitpluginutils.scheduler.TickBudgetedExecutor;
 import com.ethanzeigler.bukkitpluginutils.update.UpdateNotifier;
 import org.bukkit.ChatColor;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.PluginDescriptionFile;
@@ -13,6 +47,21 @@ import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.plugin.java.JavaPluginLoader;
 
 import java.io.*;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.zip.ZipFile;
 
 /**
@@ -21,17 +70,47 @@ import java.util.zip.ZipFile;
 public abstract class BukkitUtilPlugin extends JavaPlugin {
     private static final String UTILS_FILE_FOLDER = "BukkitPluginUtils/";
     private static final String UTILS_FILE_NAME = "BPUData.yml";
+    private static final String STARTUP_REPORT_FILE_NAME = "startup-profile.json";
+    private static final String SCHEDULER_METRICS_FILE_NAME = "scheduler-metrics.json";
+    private static final String STALL_REPORT_FILE_NAME = "stalls.folded";
+    private static final String PLAYER_FILE_FOLDER = "Player Files/";
+    private static final String PLAYER_DATA_FILE_NAME = "Player Files.dat";
+    private static final String MIGRATED_PLAYER_FILE_FOLDER = "Player Files (migrated)/";
+    private static final String MIGRATED_PLAYER_FILE_FOLDER_WITH_TIME = "Player Files (migrated %d)/";
+    private static final String PLAYER_INDEX_FOLDER = "Player Indexes/";
     public static final String BPU_VERSION = "1";
+    private static final long SHUTDOWN_FLUSH_TIMEOUT = 10000;
+    private static final long NANOS_PER_TICK = 50000000L;
 
 
-    private FileConfiguration utilsFile;
+    private final Object utilsFileLock = new Object();
+    private volatile TrackedConfiguration utilsFile;
     private boolean isProperlyLoaded = false;
     private String pluginDirectoryPath;
     private UpdateNotifier updateNotifier;
     private BPUOptions options;
+    private PlayerFileCache playerFileCache;
+    private PlayerDataIndexes playerDataIndexes;
+    private ConfigurationCache configurationCache;
+    private TickBudgetedExecutor syncExecutor;
+    private MainThreadDispatcher dispatcher;
+    private AsyncExecutor asyncExecutor;
+    private PluginExecutor mainThreadExecutor;
+    private PluginExecutor asyncThreadExecutor;
+    private FutureTracker futureTracker;
+    private KeyedSerialExecutor<Object> keyedExecutor;
+    private StallWatchdog stallWatchdog;
+    private volatile GroupCommitWriter fileWriter;
+    private final Object asyncTasksLock = new Object();
+    private int asyncTasksInFlight;
+    private boolean isScannerRetained;
+    private final SaveStatistics saveStatistics = new SaveStatistics();
+    private final SchedulerMetrics schedulerMetrics = new SchedulerMetrics();
 
     public BukkitUtilPlugin() {
-        initializeOptions();
+        try (StartupProfiler.Phase phase = StartupProfiler.begin(getName(), "initializeOptions")) {
+            initializeOptions();
+        }
     }
 
     /**
@@ -44,31 +123,81 @@ public abstract class BukkitUtilPlugin extends JavaPlugin {
      */
     public BukkitUtilPlugin(PluginLoader loader, Server server, PluginDescriptionFile description, File dataFolder, File file) {
         super(loader, server, description, dataFolder, file);
-        initializeOptions();
+        try (StartupProfiler.Phase phase = StartupProfiler.begin(getName(), "initializeOptions")) {
+            initializeOptions();
+        }
     }
 
     public BukkitUtilPlugin(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
         super(loader, description, dataFolder, file);
-        initializeOptions();
+        try (StartupProfiler.Phase phase = StartupProfiler.begin(getName(), "initializeOptions")) {
+            initializeOptions();
+        }
     }
 
     /**
      * Loads a file from the plugin folder with the given name. If the file does not exist, it will be created.
      * An IOException will occur if the file cannot be created or if loading fails.
      *
+     * <p>The returned configuration tracks its changes, so saving it with
+     * {@link BukkitUtilPlugin#saveYamlConfiguration(String, FileConfiguration)} does nothing if it has not changed.</p>
+     *
+     * <p>Configurations are cached, so the same instance is returned until the file is changed on disk by something
+     * other than this plugin. Changes made to it without saving are seen by every caller.</p>
+     *
      * @param path the name of the file and it's path in the plugin folder
      * @return The {@link YamlConfiguration} specified by the path.
      * @throws IOException if the file fails to load or the file does not exist and cannot be created.
      */
     public YamlConfiguration getYamlConfiguration(String path) {
         validateState();
-        File file = null;
+        File file = new File(pluginDirectoryPath + path);
         try {
-            file = new File(pluginDirectoryPath + path);
-            file.createNewFile();
+            return configurationCache.get(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            e.printStackTrace();
+            throw new RuntimeException(new IOException(
+                    "Could not load file:" + file.getPath()));
+        }
+    }
 
-            return YamlConfiguration.loadConfiguration(file);
-        } catch (IOException e) {
+    /**
+     * Saves a configuration to a file in the plugin folder. The file is replaced atomically in the background. If the
+     * configuration was loaded with {@link BukkitUtilPlugin#getYamlConfiguration(String)} and has not changed since,
+     * nothing is written.
+     *
+     * @param path the name of the file and it's path in the plugin folder
+     * @param config the configuration to save
+     */
+    public void saveYamlConfiguration(String path, FileConfiguration config) {
+        validateState();
+        File file = new File(pluginDirectoryPath + path);
+        if (config instanceof TrackedConfiguration && !((TrackedConfiguration) config).isDirty()) {
+            saveStatistics.recordAvoidedSave(file.length());
+            return;
+        }
+
+        byte[] data = saveTracked(config, file);
+        if (config instanceof TrackedConfiguration) {
+            configurationCache.put(file, (TrackedConfiguration) config, data);
+        } else {
+            configurationCache.invalidate(file);
+        }
+    }
+
+    /**
+     * Calls the listener on the main thread with the reloaded configuration whenever the file in the plugin folder
+     * is changed by something other than this plugin, so edits take effect without a restart.
+     *
+     * @param path the name of the file and it's path in the plugin folder
+     * @param listener called with the file's new configuration
+     */
+    public void addYamlReloadListener(String path, Consumer<YamlConfiguration> listener) {
+        validateState();
+        File file = new File(pluginDirectoryPath + path);
+        try {
+            configurationCache.addReloadListener(file, listener::accept);
+        } catch (IOException | InvalidConfigurationException e) {
             e.printStackTrace();
             throw new RuntimeException(new IOException(
                     "Could not load file:" + file.getPath()));
@@ -76,7 +205,65 @@ public abstract class BukkitUtilPlugin extends JavaPlugin {
     }
 
     /**
-     * Gets a file from the plugin data folder. If the file does not exist, it will be created.
+     * Binds a file in the plugin folder to a settings class or interface, so settings can be read without looking up
+     * paths. The binding is updated whenever the file is edited; if the edited file has the wrong types, the error is
+     * logged and the previous settings are kept.
+     *
+     * @param path the name of the file and it's path in the plugin folder
+     * @param type the settings type, with fields or methods annotated with
+     *             {@link com.ethanzeigler.bukkitpluginutils.config.ConfigPath}
+     * @param <T> the settings type
+     * @return the binding, which holds the current settings
+     * @throws InvalidConfigurationException if any value in the file has the wrong type or a required value is missing
+     * @see ConfigBinder
+     */
+    public <T> ConfigBinding<T> bindYamlConfiguration(String path, Class<T> type)
+            throws InvalidConfigurationException {
+        ConfigBinding<T> binding = new ConfigBinding<>(type, getYamlConfiguration(path));
+        addYamlReloadListener(path, config -> {
+            try {
+                binding.rebind(config);
+            } catch (InvalidConfigurationException e) {
+                getLogger().log(Level.WARNING, "Kept the previous settings from " + path, e);
+            }
+        });
+        return binding;
+    }
+
+    /**
+     * Queues the configuration to be written by the plugin's writer, or writes it right away if the plugin holds none,
+     * and records the save, marking the saved changes clean if it is tracked.
+     * @return the data written
+     */
+    private byte[] saveTracked(FileConfiguration config, File file) {
+        TrackedConfiguration.Changes changes = null;
+        if (config instanceof TrackedConfiguration) {
+            changes = ((TrackedConfiguration) config).getChanges();
+        }
+
+        byte[] data = config.saveToString().getBytes(StandardCharsets.UTF_8);
+        GroupCommitWriter writer = fileWriter;
+        if (writer != null) {
+            writer.write(file.toPath(), data);
+        } else {
+            // not enabled yet, or already disabled, so no writer is held
+            try {
+                GroupCommitWriter.writeNow(file.toPath(), data);
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new RuntimeException(new IOException("Could not write file:" + file.getPath()));
+            }
+        }
+        saveStatistics.recordFullSave(data.length);
+        if (changes != null) {
+            ((TrackedConfiguration) config).markClean(changes);
+        }
+        return data;
+    }
+
+    /**
+     * Gets a file from the plugin data folder. If the file does not exist, it will be created along with any missing
+     * folders, so this can be used before the BPU resources are initialized.
      *
      * @param fileName the file name to get
      * @return the found file. If the file does not exist, it will be created.
@@ -84,6 +271,7 @@ public abstract class BukkitUtilPlugin extends JavaPlugin {
     public File getFile(String fileName) {
         File file = new File(pluginDirectoryPath + fileName);
         try {
+            file.getParentFile().mkdirs();
             file.createNewFile();
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -126,25 +314,48 @@ public abstract class BukkitUtilPlugin extends JavaPlugin {
          */
         options = new BPUOptions(this.getDescription().getFullName());
 
-        try (ZipFile zipFile = new ZipFile(getFile())){
+        try (InputStream in = openPluginYml()) {
             FileConfiguration yml = YamlConfiguration.loadConfiguration(
-                    new BufferedReader(new InputStreamReader(zipFile.getInputStream(zipFile.getEntry("plugin.yml")))));
+                    new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            // a mistyped setting only loses that setting
+            PluginYmlSettings settings = ConfigBinder.bindLenient(yml, PluginYmlSettings.class,
+                    error -> getLogger().warning("Ignoring plugin.yml setting: " + error));
             // load extra data
             // null check is part of the options class
-            options.setPluginPrefix((String) yml.get("utils.prefix"));
-            options.setUpdateCheckEnabled((Boolean) yml.get("utils.update.remote_enabled"));
-            options.setUpdateInstalledMessageOn((Boolean) yml.get("utils.update.local_enabled"));
-            options.setChangelog((String) yml.get("utils.update.changelog"));
-            options.setUpdateAlertPermission((String) yml.get("utils.update.permission_node"));
-        } catch (ClassCastException | IOException e) {
+            options.setPluginPrefix(settings.prefix);
+            options.setUpdateCheckEnabled(settings.isUpdateCheckOn);
+            options.setUpdateInstalledMessageOn(settings.isUpdateInstalledMessageOn);
+            options.setChangelog(settings.changelog);
+            options.setUpdateAlertPermission(settings.updateAlertPermission);
+        } catch (IOException e) {
             e.printStackTrace();
         }
 
         // initialize other data that can be done before the second load
+        // the data folder is created by getFile or when the BPU resources are initialized
         pluginDirectoryPath = getDataFolder().getPath() + "/";
+    }
+
+    /**
+     * Opens the plugin.yml through the plugin's class loader, which already has the jar open, instead of opening the
+     * jar again. Only the jar's own resources are searched so another plugin.yml on the server's class path is never
+     * read.
+     */
+    private InputStream openPluginYml() throws IOException {
+        ClassLoader loader = getClassLoader();
+        URL url = loader instanceof URLClassLoader ? ((URLClassLoader) loader).findResource("plugin.yml") : null;
+        if (url != null) {
+            return url.openStream();
+        }
 
-        // create data folder
-        new File(pluginDirectoryPath).mkdirs();
+        // not loaded by Bukkit's plugin class loader, so read the jar directly
+        ZipFile zipFile = new ZipFile(getFile());
+        return new FilterInputStream(zipFile.getInputStream(zipFile.getEntry("plugin.yml"))) {
+            @Override
+            public void close() throws IOException {
+                zipFile.close();
+            }
+        };
     }
 
 
@@ -153,10 +364,203 @@ public abstract class BukkitUtilPlugin extends JavaPlugin {
      * later and without warning.
      */
     public void initializeBPUResources() {
-        updateNotifier = new UpdateNotifier(this);
+        String name = getName();
+        List<PlayerDataIndex> unbuiltIndexes;
+        try (StartupProfiler.Phase ignored = StartupProfiler.begin(name, "initializeBPUResources")) {
+            new File(pluginDirectoryPath).mkdirs();
+            fileWriter = GroupCommitWriter.retainShared();
+            PlayerDataScanner.retainShared();
+            isScannerRetained = true;
+            syncExecutor = new TickBudgetedExecutor(this, options.getSyncWorkMicrosPerTick());
+            syncExecutor.start();
+            schedulerMetrics.setEnabled(options.isSchedulerMetricsOn());
+            if (options.getStallThresholdMillis() > 0) {
+                stallWatchdog = new StallWatchdog(getLogger(),
+                        new File(pluginDirectoryPath + UTILS_FILE_FOLDER + STALL_REPORT_FILE_NAME),
+                        options.getStallThresholdMillis());
+                stallWatchdog.start();
+            }
+            dispatcher = new MainThreadDispatcher(this);
+            dispatcher.start();
+            asyncExecutor = options.isAsyncExecutorShared()
+                    ? AsyncExecutor.retainShared(options.getAsyncExecutorOptions(), getLogger())
+                    : new AsyncExecutor(options.getAsyncExecutorOptions(), getLogger());
+            mainThreadExecutor = new PluginExecutor(this, "main thread", this::runSynchronously);
+            asyncThreadExecutor = new PluginExecutor(this, "async executor", this::executeAsynchronously);
+            futureTracker = new FutureTracker(this);
+            keyedExecutor = new KeyedSerialExecutor<>(this::executeAsynchronously, getLogger());
+            try (StartupProfiler.Phase phase = StartupProfiler.begin(name, "initializeBPUResources/updateNotifier")) {
+                updateNotifier = new UpdateNotifier(this);
+            }
+            configurationCache = new ConfigurationCache(fileWriter, this::runSynchronously);
+            try (StartupProfiler.Phase phase = StartupProfiler.begin(name, "initializeBPUResources/playerFileCache")) {
+                playerFileCache = new PlayerFileCache(this, createPlayerDataStore(), options, saveStatistics);
+                playerFileCache.start();
+            }
+            if (options.isPlayerFilePreloadOn()) {
+                getServer().getPluginManager().registerEvents(new PlayerFilePreloader(playerFileCache), this);
+            }
+
+            try (StartupProfiler.Phase phase = StartupProfiler.begin(name, "initializeBPUResources/indexes")) {
+                playerDataIndexes = new PlayerDataIndexes(new File(pluginDirectoryPath + PLAYER_INDEX_FOLDER),
+                        fileWriter, getLogger());
+                unbuiltIndexes = playerDataIndexes.load(options.getHashIndexedPaths(), options.getSortedIndexedPaths());
+                playerFileCache.setSaveListener(playerDataIndexes::update);
+            }
+
+            // all loaded
+            isProperlyLoaded = true;
+        }
+
+        if (!unbuiltIndexes.isEmpty()) {
+            buildIndexes(unbuiltIndexes);
+        }
+
+        // runs on the first tick, once every plugin has been enabled
+        getServer().getScheduler().runTask(this, () -> StartupProfiler.report(getLogger(),
+                new File(pluginDirectoryPath + UTILS_FILE_FOLDER + STARTUP_REPORT_FILE_NAME)));
+    }
+
+    /**
+     * Opens the player data store selected in the options. When the indexed store is selected and the Player Files
+     * directory still exists, its files are imported and the directory is renamed. The indexed store records that the
+     * import finished, so the directory is never imported again even if it cannot be renamed.
+     * @return the player data store
+     */
+    private PlayerDataStore createPlayerDataStore() {
+        DirectoryPlayerDataStore directoryStore = new DirectoryPlayerDataStore(
+                new File(pluginDirectoryPath + PLAYER_FILE_FOLDER), fileWriter);
+        if (options.getPlayerStorageType() == PlayerStorageType.DIRECTORY) {
+            return directoryStore;
+        }
+
+        try {
+            IndexedPlayerDataStore indexedStore =
+                    new IndexedPlayerDataStore(new File(pluginDirectoryPath + PLAYER_DATA_FILE_NAME));
+            File directory = directoryStore.getDirectory();
+            if (directory.isDirectory()) {
+                boolean wasImported = indexedStore.isImported();
+                if (!wasImported) {
+                    int count = indexedStore.importFrom(directoryStore);
+                    getLogger().info(String.format("Migrated %d player files to %s", count, PLAYER_DATA_FILE_NAME));
+                }
+
+                // an earlier migration, or a restored backup, may have left a migrated folder behind
+                File migrated = new File(pluginDirectoryPath + MIGRATED_PLAYER_FILE_FOLDER);
+                if (migrated.exists()) {
+                    migrated = new File(pluginDirectoryPath + String.format(MIGRATED_PLAYER_FILE_FOLDER_WITH_TIME,
+                            System.currentTimeMillis()));
+                }
+
+                if (wasImported) {
+                    getLogger().warning(String.format("Found %s, but player files were already migrated to %s. Its "
+                                    + "files were not imported and it is being moved to %s.", directory.getPath(),
+                            PLAYER_DATA_FILE_NAME, migrated.getPath()));
+                }
+                if (!directory.renameTo(migrated)) {
+                    getLogger().severe(String.format("Could not rename %s to %s after migrating it to %s. It is no "
+                                    + "longer read; rename or remove it by hand.", directory.getPath(),
+                            migrated.getPath(), PLAYER_DATA_FILE_NAME));
+                }
+            }
+            return indexedStore;
+        } catch (IOException e) {
+            throw new RuntimeException(new IOException("Could not open the player data file", e));
+        }
+    }
+
+    /**
+     * Builds indexes that could not be loaded from a scan of every stored player file.
+     */
+    private void buildIndexes(List<PlayerDataIndex> indexes) {
+        PlayerDataQuery query = new PlayerDataQuery();
+        for (PlayerDataIndex index : indexes) {
+            query.select(index.getPath());
+        }
+
+        scanPlayerFiles(query, (id, data) -> PlayerDataIndexes.build(indexes, id, data))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        getLogger().log(Level.SEVERE, "Could not build player data indexes", error);
+                        return;
+                    }
+                    PlayerDataIndexes.setBuilt(indexes);
+                    getLogger().info(String.format("Built %d player data indexes from %d players in %dms",
+                            indexes.size(), result.getScanned(), result.getMillis()));
+                });
+    }
 
-        // all loaded
-        isProperlyLoaded = true;
+    /**
+     * Releases the BPU resources, writing any player files that have not been saved to disk yet and waiting for every
+     * pending file write to finish. This is called by {@link BukkitUtilPlugin#onDisable()}.
+     */
+    public void shutdownBPUResources() {
+        // stop pipelines first, then run what is queued, since it may still save player files
+        if (futureTracker != null) {
+            futureTracker.cancelAll();
+        }
+        if (asyncExecutor != null) {
+            // a shared executor keeps running for other plugins, so this plugin's own tasks are waited for below
+            if (options.isAsyncExecutorShared()) {
+                AsyncExecutor.releaseShared(SHUTDOWN_FLUSH_TIMEOUT);
+            } else {
+                asyncExecutor.shutdown(SHUTDOWN_FLUSH_TIMEOUT);
+            }
+            asyncExecutor = null;
+        }
+        // includes tasks overflowed to Bukkit's scheduler
+        if (!awaitAsyncTasks(SHUTDOWN_FLUSH_TIMEOUT)) {
+            getLogger().warning("Some async tasks were still running at shutdown");
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (syncExecutor != null) {
+            syncExecutor.shutdown();
+        }
+        if (stallWatchdog != null) {
+            stallWatchdog.stop();
+            stallWatchdog = null;
+        }
+        if (mainThreadExecutor != null) {
+            mainThreadExecutor.close();
+            asyncThreadExecutor.close();
+        }
+        if (playerFileCache != null) {
+            playerFileCache.shutdown();
+        }
+        if (playerDataIndexes != null) {
+            playerDataIndexes.save();
+        }
+        if (isScannerRetained) {
+            isScannerRetained = false;
+            PlayerDataScanner.releaseShared();
+        }
+        if (configurationCache != null) {
+            configurationCache.close();
+        }
+
+        try {
+            // closes the writer's thread if no other plugin is using it
+            if (fileWriter != null) {
+                fileWriter = null;
+                if (!GroupCommitWriter.releaseShared(SHUTDOWN_FLUSH_TIMEOUT)) {
+                    getLogger().severe("Timed out waiting for files to be written. Some changes may be lost.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        isProperlyLoaded = false;
+    }
+
+    /**
+     * Called by Bukkit when the plugin is disabled. If you override this method, call {@code super.onDisable()} so
+     * that unsaved data is written to disk.
+     */
+    @Override
+    public void onDisable() {
+        shutdownBPUResources();
     }
 
     /**
@@ -173,71 +577,298 @@ public abstract class BukkitUtilPlugin extends JavaPlugin {
      */
 
     /**
-     * Gets the API's utility file
+     * Gets the API's utility file. It may be loaded and used from any thread; every read and change of it holds its
+     * guard, so no thread sees it half changed.
      * @return the API's utility file
      */
     public FileConfiguration getUtilsFile() {
-        if (utilsFile != null) {
-            return utilsFile;
-        } else {
-            try {
-                new File(pluginDirectoryPath + UTILS_FILE_FOLDER).mkdirs();
-                File configFile = new File(pluginDirectoryPath + UTILS_FILE_FOLDER + UTILS_FILE_NAME);
-                configFile.createNewFile();
-                utilsFile = YamlConfiguration.loadConfiguration(configFile);
-                utilsFile.options().header(options.getFileHeader());
-                saveUtilsFile();
+        return loadUtilsFile();
+    }
+
+    /**
+     * Loads the utility file the first time it is needed. The update notifier loads it on an async thread, so it is
+     * only published once it is fully loaded.
+     */
+    private TrackedConfiguration loadUtilsFile() {
+        TrackedConfiguration file = utilsFile;
+        if (file != null) {
+            return file;
+        }
+
+        synchronized (utilsFileLock) {
+            if (utilsFile != null) {
                 return utilsFile;
-            } catch (IOException e) {
-                e.printStackTrace();
-                return null;
+            }
+
+            try (StartupProfiler.Phase phase = StartupProfiler.begin(getName(), "getUtilsFile")) {
+                File configFile = new File(pluginDirectoryPath + UTILS_FILE_FOLDER + UTILS_FILE_NAME);
+                boolean isNewFile = !configFile.exists();
+                file = TrackedConfiguration.loadConfiguration(configFile);
+                file.options().header(options.getFileHeader());
+                file.setGuard(new ReentrantReadWriteLock());
+                if (isNewFile) {
+                    // write the header to the new file
+                    saveTracked(file, configFile);
+                }
+                utilsFile = file;
+                return file;
             }
         }
     }
 
     /**
-     * Saves the API's utility file
+     * Saves the API's utility file. Nothing is written if it has not changed since it was loaded or last saved.
      */
     public void saveUtilsFile() {
+        TrackedConfiguration config = loadUtilsFile();
+        File file = new File(pluginDirectoryPath + UTILS_FILE_FOLDER + UTILS_FILE_NAME);
+        // changes from other threads wait, so the saved text and the changes marked clean match
+        Lock lock = config.getGuard().writeLock();
+        lock.lock();
         try {
-            utilsFile.save(pluginDirectoryPath + UTILS_FILE_FOLDER + UTILS_FILE_NAME);
-        } catch (IOException e) {
-            e.printStackTrace();
+            if (!config.isDirty()) {
+                saveStatistics.recordAvoidedSave(file.length());
+                return;
+            }
+
+            saveTracked(config, file);
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
-     * Gets the player's yml file from the Player Files directory of the plugin folder. If it does not exist, it will
-     * be created.
+     * Gets the player's yml file from the Player Files directory of the plugin folder. The file is cached in memory
+     * while the player is online, so repeated calls return the same instance without touching the disk. Every read
+     * and change of the file holds the player's lock, so it is never seen half changed; to read a value and change it
+     * without another thread changing it in between, use {@link #modifyPlayerFile(OfflinePlayer, Function)}.
+     *
+     * <p>Player files are kept by the player file cache, which is created by {@link #initializeBPUResources()}, so
+     * unlike earlier versions this can no longer be called before then.</p>
      * @param player the player who's file should be loaded.
      * @return the player's file.
+     * @throws RuntimeException caused by a {@link FailedInitializationError} if the BPU resources are not initialized
      */
     public FileConfiguration getPlayerFile(OfflinePlayer player) {
-        try {
-            File file = new File(String.format(pluginDirectoryPath + "Player Files/%s.txt", player.getUniqueId()));
-            file.createNewFile();
+        validateState();
+        return playerFileCache.get(player.getUniqueId());
+    }
 
-            return YamlConfiguration.loadConfiguration(file);
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new RuntimeException(new IOException(
-                    String.format("Could not load player file: %s/%s", player.getName(), player.getUniqueId())));
+    /**
+     * Gets the player's yml file without blocking. If the file is not in memory, it is loaded asynchronously and the
+     * future completes on the loading thread.
+     * @param player the player who's file should be loaded.
+     * @return a future of the player's file.
+     */
+    public CompletableFuture<FileConfiguration> getPlayerFileAsync(OfflinePlayer player) {
+        return getPlayerFileAsync(player, false);
+    }
+
+    /**
+     * Gets the player's yml file without blocking. If the file is not in memory, it is loaded asynchronously.
+     * @param player the player who's file should be loaded.
+     * @param completeOnMainThread whether the future should be completed on the main thread so dependent actions can
+     *                             use the Bukkit API. If the file is already in memory, the future is returned complete.
+     * @return a future of the player's file. It fails with a {@link RejectedExecutionException} if the async executor
+     * rejects or drops the load.
+     */
+    public CompletableFuture<FileConfiguration> getPlayerFileAsync(OfflinePlayer player,
+                                                                   boolean completeOnMainThread) {
+        validateState();
+        UUID id = player.getUniqueId();
+        FileConfiguration cached = playerFileCache.getIfCached(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
         }
+
+        CompletableFuture<FileConfiguration> future = new CompletableFuture<>();
+        runAsynchronouslyOrFail(future, () -> {
+            Runnable completion;
+            try {
+                FileConfiguration file = playerFileCache.get(id);
+                completion = () -> future.complete(file);
+            } catch (Throwable t) {
+                completion = () -> future.completeExceptionally(t);
+            }
+
+            if (completeOnMainThread) {
+                runSynchronously(completion);
+            } else {
+                completion.run();
+            }
+        });
+        return future;
     }
 
     /**
-     * Saves the player's file.
+     * Saves the player's file. The file is written to disk in the background with other changed player files, and
+     * the player's entries in every player data index are updated. Like {@link #getPlayerFile(OfflinePlayer)}, this
+     * can no longer be called before {@link #initializeBPUResources()}.
      * @param file the player's file
      * @param player the player who's file is being saved.
+     * @throws RuntimeException caused by a {@link FailedInitializationError} if the BPU resources are not initialized
      */
     public void savePlayerFile(FileConfiguration file, OfflinePlayer player) {
-        try {
-            file.save(new File(String.format(pluginDirectoryPath + "Player Files/%s.txt", player.getUniqueId())));
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new RuntimeException(new IOException(
-                    String.format("Could not save player file: %s/%s", player.getName(), player.getUniqueId())));
-        }
+        validateState();
+        playerFileCache.put(player.getUniqueId(), file);
+    }
+
+    /**
+     * Reads the player's file while holding the player's lock, so no transaction on another thread changes it
+     * meanwhile. Safe to call from any thread.
+     * @param player the player who's file should be read.
+     * @param reader reads the file. It must not keep the file, and changing it throws an
+     *               {@link IllegalStateException}.
+     * @param <T> the type of value read
+     * @return the value read
+     */
+    public <T> T readPlayerFile(OfflinePlayer player, Function<FileConfiguration, T> reader) {
+        validateState();
+        return playerFileCache.read(player.getUniqueId(), reader);
+    }
+
+    /**
+     * Changes and saves the player's file while holding the player's lock, so changes made from different threads are
+     * never lost. Other threads working on the same player wait, so the modifier should be quick. Safe to call from
+     * any thread.
+     * @param player the player who's file should be changed.
+     * @param modifier changes the file. It must not keep the file.
+     * @param <T> the type of value returned by the modifier
+     * @return the modifier's result
+     */
+    public <T> T modifyPlayerFile(OfflinePlayer player, Function<FileConfiguration, T> modifier) {
+        validateState();
+        return playerFileCache.modify(player.getUniqueId(), modifier);
+    }
+
+    /**
+     * Changes and saves the player's file optimistically. The updater changes a copy of the file without holding any
+     * lock, and the copy is only saved if nobody saved the player's file meanwhile; otherwise the updater runs again.
+     * Safe to call from any thread.
+     * @param player the player who's file should be changed.
+     * @param updater changes the file. It may run more than once and must not keep the file.
+     */
+    public void updatePlayerFile(OfflinePlayer player, Consumer<FileConfiguration> updater) {
+        validateState();
+        playerFileCache.update(player.getUniqueId(), updater);
+    }
+
+    /**
+     * Copies the player's file along with its version. Change the copy, then save it with
+     * {@link BukkitUtilPlugin#commitPlayerFile(PlayerFileSnapshot)}.
+     * @param player the player who's file should be copied.
+     * @return the copy and the version it was taken at
+     */
+    public PlayerFileSnapshot getPlayerFileSnapshot(OfflinePlayer player) {
+        validateState();
+        return playerFileCache.snapshot(player.getUniqueId());
+    }
+
+    /**
+     * Saves the changes made to a copy of a player's file, unless the player's file was saved after the copy was
+     * taken.
+     * @param snapshot the changed copy
+     * @return whether the changes were saved
+     */
+    public boolean commitPlayerFile(PlayerFileSnapshot snapshot) {
+        validateState();
+        return playerFileCache.commit(snapshot);
+    }
+
+    /**
+     * Gets the locks guarding player files, which expose contention counters.
+     * @return the player locks
+     */
+    public StripedPlayerLocks getPlayerLocks() {
+        validateState();
+        return playerFileCache.getLocks();
+    }
+
+    /**
+     * Gets the hash index of a player file path, for finding players by value. Hash indexed paths are set with
+     * {@link BPUOptions#setHashIndexedPaths(List)}.
+     * @param path the indexed path
+     * @return the index, or null if the path has no hash index
+     */
+    public HashPlayerDataIndex getHashIndex(String path) {
+        validateState();
+        return playerDataIndexes.getHashIndex(path);
+    }
+
+    /**
+     * Gets the sorted index of a player file path, for range queries and leaderboards. Sorted indexed paths are set
+     * with {@link BPUOptions#setSortedIndexedPaths(List)}.
+     * @param path the indexed path
+     * @return the index, or null if the path has no sorted index
+     */
+    public SortedPlayerDataIndex getSortedIndex(String path) {
+        validateState();
+        return playerDataIndexes.getSortedIndex(path);
+    }
+
+    /**
+     * Visits the stored player file of every player who has one, on and offline, in the background. Unsaved changes
+     * are flushed first so the scan sees them. Only the paths the query selects are read.
+     * @param query the values to read and the filters players must match
+     * @param visitor called with each matching player's id and selected values. It is called from several threads at
+     *                once and must not use the Bukkit API.
+     * @return a future of the scan's result, completed off the main thread
+     */
+    public CompletableFuture<PlayerDataScanner.Result> scanPlayerFiles(PlayerDataQuery query,
+                                                                       BiConsumer<UUID, ConfigurationSection> visitor) {
+        return scanPlayerFiles(query, visitor, null);
+    }
+
+    /**
+     * Visits the stored player file of every player who has one, on and offline, in the background. Unsaved changes
+     * are flushed first so the scan sees them. Only the paths the query selects are read.
+     * @param query the values to read and the filters players must match
+     * @param visitor called with each matching player's id and selected values. It is called from several threads at
+     *                once and must not use the Bukkit API.
+     * @param listener told how many players have been scanned after each batch, or null
+     * @return a future of the scan's result, completed off the main thread
+     */
+    public CompletableFuture<PlayerDataScanner.Result> scanPlayerFiles(PlayerDataQuery query,
+                                                                       BiConsumer<UUID, ConfigurationSection> visitor,
+                                                                       PlayerDataScanner.ProgressListener listener) {
+        validateState();
+        PlayerDataScanner scanner = new PlayerDataScanner(playerFileCache.getStore(), options.getPlayerDataCodec(),
+                getLogger());
+        CompletableFuture<PlayerDataScanner.Result> future = new CompletableFuture<>();
+        runAsynchronouslyOrFail(future, () -> {
+            try {
+                playerFileCache.flush();
+                future.complete(scanner.scan(query, visitor, listener));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the cache of configurations loaded with {@link BukkitUtilPlugin#getYamlConfiguration(String)}, which
+     * exposes hit, miss and invalidation counters.
+     * @return the configuration cache
+     */
+    public ConfigurationCache getConfigurationCache() {
+        return configurationCache;
+    }
+
+    /**
+     * Gets the cache of player files, which also exposes hit, miss and flush counters.
+     * @return the player file cache
+     */
+    public PlayerFileCache getPlayerFileCache() {
+        return playerFileCache;
+    }
+
+    /**
+     * Gets the counts of saves made and of saves and bytes avoided because files had not changed.
+     * @return the save statistics
+     */
+    public SaveStatistics getSaveStatistics() {
+        return saveStatistics;
     }
 
     /**
@@ -265,18 +896,323 @@ public abstract class BukkitUtilPlugin extends JavaPlugin {
     }
 
     /**
-     * Runs a runnable synchronously. Simply a convenience method.
+     * Runs a runnable synchronously. Simply a convenience method. Runnables without a delay run on the next tick
+     * through one shared task rather than a scheduler task each, in the order each thread queued them.
      * @param runnable the runnable to run synchronously.
      */
     public void runSynchronously(Runnable runnable, long delay) {
-        getServer().getScheduler().runTaskLater(this, runnable, delay);
+        runSynchronously(null, runnable, delay);
+    }
+
+    /**
+     * Runs a runnable synchronously on the next tick, timing it under the label if scheduler metrics are enabled.
+     * @param label the label to group the runnable's timings under
+     * @param runnable the runnable to run synchronously.
+     */
+    public void runSynchronously(String label, Runnable runnable) {
+        runSynchronously(label, runnable, 0);
+    }
+
+    /**
+     * Runs a runnable synchronously, timing it under the label if scheduler metrics are enabled.
+     * @param label the label to group the runnable's timings under, or null to name it after the runnable's class
+     * @param runnable the runnable to run synchronously.
+     * @param delay the number of ticks to wait before running it
+     */
+    public void runSynchronously(String label, Runnable runnable, long delay) {
+        Runnable task = runnable;
+        if (stallWatchdog != null) {
+            label = label != null ? label : SchedulerMetrics.getLabel(runnable);
+            task = stallWatchdog.wrap(label, task);
+        }
+        task = schedulerMetrics.wrap(label, task, Math.max(0, delay) * NANOS_PER_TICK);
+        if (delay <= 0 && dispatcher != null && dispatcher.isRunning()) {
+            dispatcher.execute(task);
+        } else {
+            getServer().getScheduler().runTaskLater(this, task, delay);
+        }
     }
 
     /**
-     * Runs a runnable asynchronously. Simply a convenience method.
+     * Queues a runnable to run on the main thread within the per-tick budget set by
+     * {@link BPUOptions#setSyncWorkMicrosPerTick(Long)}. Use this instead of
+     * {@link BukkitUtilPlugin#runSynchronously(Runnable)} for bursts of work, such as acting on many players after an
+     * async computation, so they are spread over several ticks. Safe to call from any thread.
+     * @param runnable the runnable to run synchronously.
+     */
+    public void submitSync(Runnable runnable) {
+        submitSync(runnable, TaskPriority.NORMAL);
+    }
+
+    /**
+     * Queues a runnable to run on the main thread within the per-tick budget. Higher priority runnables run first.
+     * Safe to call from any thread.
+     * @param runnable the runnable to run synchronously.
+     * @param priority how urgently it should run
+     */
+    public void submitSync(Runnable runnable, TaskPriority priority) {
+        validateState();
+        syncExecutor.submit(runnable, priority);
+    }
+
+    /**
+     * Gets the budgeted main thread executor used by {@link BukkitUtilPlugin#submitSync(Runnable)}, which exposes
+     * queue depth and time spent.
+     * @return the budgeted executor
+     */
+    public TickBudgetedExecutor getSyncExecutor() {
+        return syncExecutor;
+    }
+
+    /**
+     * Gets the dispatcher that runs {@link BukkitUtilPlugin#runSynchronously(Runnable)} work on the next tick.
+     * @return the main thread dispatcher
+     */
+    public MainThreadDispatcher getMainThreadDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Runs a runnable asynchronously on BPU's bounded async executor. What happens when the executor is full is set
+     * by {@link BPUOptions#setAsyncRejectionPolicy(RejectionPolicy)}.
      * @param runnable the runnable to run asynchronously.
      */
     public void runAsynchronously(Runnable runnable) {
-        getServer().getScheduler().runTaskAsynchronously(this, runnable);
+        runAsynchronously(null, runnable);
+    }
+
+    /**
+     * Runs a runnable asynchronously on BPU's bounded async executor, timing it under the label if scheduler metrics
+     * are enabled.
+     * @param label the label to group the runnable's timings under, or null to name it after the runnable's class
+     * @param runnable the runnable to run asynchronously.
+     */
+    public void runAsynchronously(String label, Runnable runnable) {
+        offerAsynchronously(label, runnable);
+    }
+
+    /**
+     * Runs a runnable asynchronously. When the bounded executor is full and the caller is the main thread, Bukkit's
+     * async scheduler runs it instead of the main thread, which is not bounded.
+     * @return false if the runnable was dropped by {@link RejectionPolicy#DROP}
+     */
+    private boolean offerAsynchronously(String label, Runnable runnable) {
+        Runnable measured = schedulerMetrics.wrap(label, runnable, 0);
+        // counted so shutdown can wait for this plugin's tasks, even on an executor shared with other plugins
+        Runnable task = () -> {
+            try {
+                measured.run();
+            } catch (Throwable t) {
+                // a shared executor would report it as another plugin's
+                getLogger().log(Level.SEVERE, "An async task threw an exception", t);
+            } finally {
+                finishAsyncTask();
+            }
+        };
+
+        startAsyncTask();
+        boolean isAccepted = false;
+        try {
+            if (asyncExecutor != null) {
+                isAccepted = asyncExecutor.offer(task, overflow -> getServer().getScheduler()
+                        .runTaskAsynchronously(this, overflow));
+            } else {
+                getServer().getScheduler().runTaskAsynchronously(this, task);
+                isAccepted = true;
+            }
+            return isAccepted;
+        } finally {
+            if (!isAccepted) {
+                finishAsyncTask();
+            }
+        }
+    }
+
+    private void startAsyncTask() {
+        synchronized (asyncTasksLock) {
+            asyncTasksInFlight++;
+        }
+    }
+
+    private void finishAsyncTask() {
+        synchronized (asyncTasksLock) {
+            asyncTasksInFlight--;
+            asyncTasksLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits for every async task this plugin has queued or is running to finish.
+     * @return whether they all finished in time
+     */
+    private boolean awaitAsyncTasks(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (asyncTasksLock) {
+            long remaining;
+            while (asyncTasksInFlight > 0 && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    asyncTasksLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return asyncTasksInFlight == 0;
+        }
+    }
+
+    /**
+     * Runs a runnable asynchronously, throwing if it is dropped so executors built on this one can fail their futures.
+     */
+    private void executeAsynchronously(Runnable runnable) {
+        if (!offerAsynchronously(null, runnable)) {
+            throw new RejectedExecutionException("The async executor is full");
+        }
+    }
+
+    /**
+     * Runs a runnable asynchronously, failing the future instead if the runnable is rejected or dropped.
+     */
+    private void runAsynchronouslyOrFail(CompletableFuture<?> future, Runnable runnable) {
+        try {
+            executeAsynchronously(runnable);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Gets the timings of runnables scheduled through this plugin, which are recorded while
+     * {@link BPUOptions#setSchedulerMetricsEnabled(Boolean)} is on or {@link SchedulerMetrics#setEnabled(boolean)} is
+     * called.
+     * @return the scheduler metrics
+     */
+    public SchedulerMetrics getSchedulerMetrics() {
+        return schedulerMetrics;
+    }
+
+    /**
+     * Sends the scheduled runnables that have spent the most time running to the sender, such as from a command.
+     * @param sender who to send the report to
+     */
+    public void sendSchedulerReport(CommandSender sender) {
+        schedulerMetrics.sendReport(sender);
+    }
+
+    /**
+     * Writes every scheduled runnable's timings to {@code BukkitPluginUtils/scheduler-metrics.json} in the data folder.
+     * @return the file written
+     */
+    public File dumpSchedulerMetrics() {
+        File file = new File(pluginDirectoryPath + UTILS_FILE_FOLDER + SCHEDULER_METRICS_FILE_NAME);
+        try {
+            schedulerMetrics.dump(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException(new IOException("Could not write file:" + file.getPath()));
+        }
+        return file;
+    }
+
+    /**
+     * Gets an executor that runs tasks on the main thread on the next tick, for moving a
+     * {@link CompletableFuture} pipeline onto the main thread, such as with
+     * {@link CompletableFuture#thenAcceptAsync(java.util.function.Consumer, Executor)}. Tasks are rejected once the
+     * plugin is disabled.
+     * @return the main thread executor
+     */
+    public Executor getMainThreadExecutor() {
+        return mainThreadExecutor;
+    }
+
+    /**
+     * Gets an executor that runs tasks like {@link BukkitUtilPlugin#runAsynchronously(Runnable)}, for moving a
+     * {@link CompletableFuture} pipeline off the main thread. Tasks are rejected once the plugin is disabled.
+     * @return the async executor
+     */
+    public Executor getAsyncThreadExecutor() {
+        return asyncThreadExecutor;
+    }
+
+    /**
+     * Computes a value asynchronously. The future is logged if it fails and cancelled if the plugin is disabled before
+     * it finishes. If the async executor rejects or drops the computation, the future fails with a
+     * {@link RejectedExecutionException}.
+     * @param supplier computes the value
+     * @param <T> the type of the value
+     * @return the value's future
+     */
+    public <T> CompletableFuture<T> supplyAsynchronously(Supplier<T> supplier) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(supplier, getAsyncThreadExecutor());
+        } catch (RejectedExecutionException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        return trackFuture(future);
+    }
+
+    /**
+     * Computes a value on the main thread on the next tick. The future is logged if it fails and cancelled if the
+     * plugin is disabled before it finishes.
+     * @param supplier computes the value
+     * @param <T> the type of the value
+     * @return the value's future
+     */
+    public <T> CompletableFuture<T> supplySynchronously(Supplier<T> supplier) {
+        return trackFuture(CompletableFuture.supplyAsync(supplier, getMainThreadExecutor()));
+    }
+
+    /**
+     * Logs the future if it fails and cancels it if the plugin is disabled before it finishes. Track the last stage of
+     * a pipeline so that errors in any stage are reported.
+     * @param future the future
+     * @param <T> the type of the future's value
+     * @return the same future
+     */
+    public <T> CompletableFuture<T> trackFuture(CompletableFuture<T> future) {
+        return trackFuture(future, 0);
+    }
+
+    /**
+     * Logs the future if it fails and cancels it if the plugin is disabled before it finishes. If it takes longer than
+     * the timeout, it fails with a {@link java.util.concurrent.TimeoutException}.
+     * @param future the future
+     * @param timeoutMillis the longest the future may take, or 0 for no limit
+     * @param <T> the type of the future's value
+     * @return the same future
+     */
+    public <T> CompletableFuture<T> trackFuture(CompletableFuture<T> future, long timeoutMillis) {
+        return futureTracker.track(future, timeoutMillis);
+    }
+
+    /**
+     * Runs a runnable asynchronously after every runnable already queued under the same key has finished. Runnables
+     * under different keys run in parallel. Use a player's id as the key to keep their saves and loads in order.
+     * @param key the key to order the runnable by
+     * @param runnable the runnable to run asynchronously.
+     */
+    public void runAsynchronouslyInOrder(Object key, Runnable runnable) {
+        validateState();
+        keyedExecutor.execute(key, runnable);
+    }
+
+    /**
+     * Gets the executor used by {@link BukkitUtilPlugin#runAsynchronouslyInOrder(Object, Runnable)}, which can give an
+     * {@link Executor} for a single key.
+     * @return the keyed executor
+     */
+    public KeyedSerialExecutor<Object> getKeyedExecutor() {
+        return keyedExecutor;
+    }
+
+    /**
+     * Gets the bounded executor used by {@link BukkitUtilPlugin#runAsynchronously(Runnable)}, which exposes queue
+     * depth and active thread counts.
+     * @return the async executor
+     */
+    public AsyncExecutor getAsyncExecutor() {
+        return asyncExecutor;
     }
 }
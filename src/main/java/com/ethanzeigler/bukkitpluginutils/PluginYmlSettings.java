@@ -0,0 +1,23 @@
+package com.ethanzeigler.bukkitpluginutils;
+
+import com.ethanzeigler.bukkitpluginutils.config.ConfigPath;
+
+/**
+ * The BPU settings a plugin can give in its plugin.yml. Anything left out stays null so the option's default is kept.
+ */
+class PluginYmlSettings {
+    @ConfigPath("utils.prefix")
+    String prefix;
+
+    @ConfigPath("utils.update.remote_enabled")
+    Boolean isUpdateCheckOn;
+
+    @ConfigPath("utils.update.local_enabled")
+    Boolean isUpdateInstalledMessageOn;
+
+    @ConfigPath("utils.update.changelog")
+    String changelog;
+
+    @ConfigPath("utils.update.permission_node")
+    String updateAlertPermission;
+}
@@ -0,0 +1,264 @@
+package com.ethanzeigler.bukkitpluginutils.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Binds a configuration to a settings type once, so settings can be read without a path lookup or cast each time.
+ *
+ * <p>A settings class has fields annotated with {@link ConfigPath}. It is instantiated with its no-argument
+ * constructor and every annotated field is set, so reading a setting is a plain field read. A settings interface has
+ * no-argument methods annotated with {@link ConfigPath}; it is implemented with a proxy that returns values looked up
+ * when it was bound.</p>
+ *
+ * <p>Every value is checked against the type it is bound to when binding, and all mismatches are reported together in
+ * one {@link InvalidConfigurationException}; {@link #bindLenient} binds every valid value instead and reports the
+ * others one by one. Whole numbers are accepted for any numeric type they fit in, any number
+ * for floating point types, and strings for enums, ignoring case.</p>
+ */
+public final class ConfigBinder {
+    private static final Map<Class<?>, List<Binding>> bindings = new ConcurrentHashMap<>();
+
+    private ConfigBinder() {
+    }
+
+    /**
+     * Binds the settings type to the configuration.
+     * @param config the configuration to read
+     * @param type the settings class or interface
+     * @param <T> the settings type
+     * @return the bound settings
+     * @throws InvalidConfigurationException if any value has the wrong type or a required value is missing
+     */
+    public static <T> T bind(ConfigurationSection config, Class<T> type) throws InvalidConfigurationException {
+        List<String> errors = new ArrayList<>();
+        Map<Binding, Object> values = getValues(config, type, errors::add);
+        if (!errors.isEmpty()) {
+            throw new InvalidConfigurationException("Invalid " + type.getSimpleName() + ": "
+                    + String.join(", ", errors));
+        }
+        return type.isInterface() ? createProxy(type, values) : createInstance(type, values);
+    }
+
+    /**
+     * Binds the settings type to the configuration, skipping values that cannot be bound. Each skipped value is left
+     * unset, as if it were missing, and described to the error handler by its path.
+     * @param config the configuration to read
+     * @param type the settings class or interface
+     * @param errorHandler told about each value that has the wrong type and each required value that is missing
+     * @param <T> the settings type
+     * @return the bound settings
+     */
+    public static <T> T bindLenient(ConfigurationSection config, Class<T> type, Consumer<String> errorHandler) {
+        Map<Binding, Object> values = getValues(config, type, errorHandler);
+        return type.isInterface() ? createProxy(type, values) : createInstance(type, values);
+    }
+
+    /**
+     * Reads and converts the value of every member of the settings type that can be bound.
+     */
+    private static Map<Binding, Object> getValues(ConfigurationSection config, Class<?> type,
+                                                  Consumer<String> errorHandler) {
+        List<Binding> typeBindings = bindings.computeIfAbsent(type, ConfigBinder::compile);
+        Map<Binding, Object> values = new HashMap<>();
+        for (Binding binding : typeBindings) {
+            Object value = config.get(binding.path);
+            if (value == null) {
+                if (binding.isRequired) {
+                    errorHandler.accept(binding.path + " is missing");
+                }
+                continue;
+            }
+
+            Object converted = convert(value, binding.type);
+            if (converted == null) {
+                errorHandler.accept(String.format("%s must be %s, but is %s", binding.path, describe(binding.type),
+                        describe(value.getClass())));
+            } else {
+                values.put(binding, converted);
+            }
+        }
+        return values;
+    }
+
+    private static <T> T createInstance(Class<T> type, Map<Binding, Object> values) {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            T instance = constructor.newInstance();
+            for (Map.Entry<Binding, Object> entry : values.entrySet()) {
+                ((Field) entry.getKey().member).set(instance, entry.getValue());
+            }
+            return instance;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create " + type.getName(), e);
+        }
+    }
+
+    private static <T> T createProxy(Class<T> type, Map<Binding, Object> values) {
+        Map<Method, Object> results = new HashMap<>();
+        for (Binding binding : bindings.get(type)) {
+            Object value = values.get(binding);
+            results.put((Method) binding.member, value != null ? value : getDefault(binding.type));
+        }
+
+        String name = type.getSimpleName();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (results.containsKey(method)) {
+                return results.get(method);
+            } else if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            } else if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            } else if (method.getName().equals("toString")) {
+                return name;
+            }
+            throw new UnsupportedOperationException(method.getName() + " is not bound to a path");
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Finds the annotated members of a settings type.
+     */
+    private static List<Binding> compile(Class<?> type) {
+        List<Binding> compiled = new ArrayList<>();
+        if (type.isInterface()) {
+            for (Method method : type.getMethods()) {
+                ConfigPath path = method.getAnnotation(ConfigPath.class);
+                if (path != null) {
+                    if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+                        throw new IllegalArgumentException(method + " must take no arguments and return a value");
+                    }
+                    compiled.add(new Binding(method, path, method.getReturnType()));
+                }
+            }
+        } else {
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    ConfigPath path = field.getAnnotation(ConfigPath.class);
+                    if (path != null) {
+                        if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                            throw new IllegalArgumentException(field + " must not be static or final");
+                        }
+                        compiled.add(new Binding(field, path, field.getType()));
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableList(compiled);
+    }
+
+    /**
+     * Converts a configuration value to the bound type.
+     * @return the converted value, or null if the value cannot be bound to the type
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Object value, Class<?> type) {
+        Class<?> boxed = box(type);
+        if (boxed.isInstance(value)) {
+            return value;
+        }
+
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            boolean isWhole = value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte;
+            long whole = number.longValue();
+            if (boxed == Double.class) {
+                return number.doubleValue();
+            } else if (boxed == Float.class) {
+                return number.floatValue();
+            } else if (isWhole && boxed == Long.class) {
+                return whole;
+            } else if (isWhole && boxed == Integer.class && whole == (int) whole) {
+                return (int) whole;
+            } else if (isWhole && boxed == Short.class && whole == (short) whole) {
+                return (short) whole;
+            } else if (isWhole && boxed == Byte.class && whole == (byte) whole) {
+                return (byte) whole;
+            }
+        } else if (value instanceof String && type.isEnum()) {
+            try {
+                return Enum.valueOf((Class<? extends Enum>) type, ((String) value).toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        } else if (value instanceof ConfigurationSection && type == Map.class) {
+            return ((ConfigurationSection) value).getValues(false);
+        }
+        return null;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else {
+            return Character.class;
+        }
+    }
+
+    private static Object getDefault(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        }
+        return convert(0, type);
+    }
+
+    private static String describe(Class<?> type) {
+        String name = box(type).getSimpleName().toLowerCase(Locale.ENGLISH);
+        return ("aeiou".indexOf(name.charAt(0)) != -1 ? "an " : "a ") + name;
+    }
+
+    /**
+     * A field or method bound to a path.
+     */
+    private static class Binding {
+        private final AccessibleObject member;
+        private final String path;
+        private final boolean isRequired;
+        private final Class<?> type;
+
+        private Binding(AccessibleObject member, ConfigPath path, Class<?> type) {
+            member.setAccessible(true);
+            this.member = member;
+            this.path = path.value();
+            this.isRequired = path.required();
+            this.type = type;
+        }
+    }
+}
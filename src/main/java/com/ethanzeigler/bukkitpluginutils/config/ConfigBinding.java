@@ -0,0 +1,43 @@
+package com.ethanzeigler.bukkitpluginutils.config;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+/**
+ * Holds the current binding of a settings type to a configuration. Rebinding swaps in a completely bound instance at
+ * once, so readers always see either all of the old values or all of the new ones.
+ * @param <T> the settings type
+ */
+public class ConfigBinding<T> {
+    private final Class<T> type;
+    private volatile T current;
+
+    /**
+     * Binds the settings type to the configuration.
+     * @param type the settings class or interface
+     * @param config the configuration to read
+     * @throws InvalidConfigurationException if any value has the wrong type or a required value is missing
+     */
+    public ConfigBinding(Class<T> type, ConfigurationSection config) throws InvalidConfigurationException {
+        this.type = type;
+        this.current = ConfigBinder.bind(config, type);
+    }
+
+    /**
+     * Gets the settings as they were last bound. Keep the result only as long as old values are acceptable.
+     * @return the current settings
+     */
+    public T get() {
+        return current;
+    }
+
+    /**
+     * Binds the settings type to a new configuration and replaces the current settings. If binding fails, the
+     * current settings are kept.
+     * @param config the configuration to read
+     * @throws InvalidConfigurationException if any value has the wrong type or a required value is missing
+     */
+    public void rebind(ConfigurationSection config) throws InvalidConfigurationException {
+        current = ConfigBinder.bind(config, type);
+    }
+}
@@ -0,0 +1,27 @@
+package com.ethanzeigler.bukkitpluginutils.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a settings class, or a method of a settings interface, as bound to a path in a configuration.
+ * @see ConfigBinder
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface ConfigPath {
+    /**
+     * The path of the value in the configuration.
+     * @return the path
+     */
+    String value();
+
+    /**
+     * Whether binding should fail if the configuration has no value at the path. Otherwise fields keep their
+     * initial value and interface methods return null, or zero or false for primitives.
+     * @return whether the value is required
+     */
+    boolean required() default false;
+}
@@ -0,0 +1,320 @@
+package com.ethanzeigler.bukkitpluginutils.config;
+
+import com.ethanzeigler.bukkitpluginutils.io.GroupCommitWriter;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Keeps parsed configuration files in memory so loading the same file again does not read or parse it. Entries are
+ * invalidated when their file changes on disk, which is noticed through a {@link WatchService} on each file's
+ * directory. Where the platform cannot watch a directory, the file's modification time and size are checked on each
+ * load instead, and when they differ the contents are compared, since committing one of our own saves changes them
+ * too.
+ *
+ * <p>Files are read through the writer they are saved with, so writes that have not been committed yet are seen. A change that leaves a file's contents the same as the cached copy, such as one of our own
+ * saves being committed, does not invalidate it.</p>
+ */
+public class ConfigurationCache {
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Path, List<Consumer<TrackedConfiguration>>> reloadListeners = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
+    private final GroupCommitWriter writer;
+    private final Consumer<Runnable> mainThread;
+    private final WatchService watchService;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * A new cache, which starts a thread to watch for changes if the platform supports it.
+     * @param writer the writer the cached files are saved with
+     * @param mainThread runs reload listeners on the server's main thread
+     */
+    public ConfigurationCache(GroupCommitWriter writer, Consumer<Runnable> mainThread) {
+        this.writer = writer;
+        this.mainThread = mainThread;
+
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            // modification times are checked instead
+        }
+        watchService = service;
+
+        if (watchService != null) {
+            Thread thread = new Thread(this::watch, "BukkitPluginUtils Config Watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Gets the file's configuration, loading it if it is not cached or has changed. A missing file is created empty.
+     * The same instance is returned until the file changes, so changes made to it are seen by every caller.
+     * @param file the file to load
+     * @return the file's configuration
+     * @throws IOException if the file cannot be read or created
+     * @throws InvalidConfigurationException if the file is not valid YAML
+     */
+    public TrackedConfiguration get(File file) throws IOException, InvalidConfigurationException {
+        Path key = getKey(file);
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isStale && (isWatched(key) || !entry.hasFileChanged(writer))) {
+            hits.incrementAndGet();
+            return entry.config;
+        }
+
+        misses.incrementAndGet();
+        return load(file, key).config;
+    }
+
+    /**
+     * Replaces the cached configuration of a file that was just saved.
+     * @param file the saved file
+     * @param config the configuration that was saved
+     * @param data the saved contents
+     */
+    public void put(File file, TrackedConfiguration config, byte[] data) {
+        Path key = getKey(file);
+        entries.put(key, new Entry(file, config, Arrays.hashCode(data)));
+        watch(key);
+    }
+
+    /**
+     * Drops the file's configuration so it is loaded again next time.
+     * @param file the file
+     */
+    public void invalidate(File file) {
+        entries.remove(getKey(file));
+    }
+
+    /**
+     * Calls the listener on the main thread with the newly loaded configuration whenever the file is changed by
+     * something other than this plugin, such as an admin editing it. The cache is updated before the listener is
+     * called.
+     * @param file the file to watch
+     * @param listener the listener
+     * @throws IOException if the file cannot be read or created
+     * @throws InvalidConfigurationException if the file is not valid YAML
+     */
+    public void addReloadListener(File file, Consumer<TrackedConfiguration> listener)
+            throws IOException, InvalidConfigurationException {
+        reloadListeners.computeIfAbsent(getKey(file), key -> new CopyOnWriteArrayList<>()).add(listener);
+        get(file);
+    }
+
+    /**
+     * Stops watching for changes and empties the cache.
+     */
+    public void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // the thread stops either way
+            }
+        }
+        entries.clear();
+        reloadListeners.clear();
+    }
+
+    private Entry load(File file, Path key) throws IOException, InvalidConfigurationException {
+        // watch first so changes made while loading are not missed
+        watch(key);
+
+        byte[] data = writer.read(file.toPath());
+        if (data == null) {
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+            data = new byte[0];
+        }
+
+        TrackedConfiguration config = new TrackedConfiguration();
+        config.loadFromString(new String(data, StandardCharsets.UTF_8));
+        Entry entry = new Entry(file, config, Arrays.hashCode(data));
+        entries.put(key, entry);
+        return entry;
+    }
+
+    private void watch(Path key) {
+        Path directory = key.getParent();
+        if (watchService == null || directory == null || watchedDirectories.contains(directory)) {
+            return;
+        }
+
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.add(directory);
+        } catch (IOException | ClosedWatchServiceException e) {
+            // modification times are checked for this directory instead
+        }
+    }
+
+    private boolean isWatched(Path key) {
+        return watchedDirectories.contains(key.getParent());
+    }
+
+    private void watch() {
+        while (true) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+                // editors often write a file in several steps, so let them finish before looking
+                Thread.sleep(SETTLE_MILLIS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path directory = (Path) watchKey.watchable();
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // some events were lost, so check everything in the directory
+                    for (Path key : entries.keySet()) {
+                        if (directory.equals(key.getParent())) {
+                            onChange(key);
+                        }
+                    }
+                } else {
+                    onChange(directory.resolve((Path) event.context()));
+                }
+            }
+
+            if (!watchKey.reset()) {
+                watchedDirectories.remove(directory);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the file's entry if its contents differ from the cached copy, reloading it for any listeners.
+     */
+    private void onChange(Path key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+
+        try {
+            byte[] data = writer.read(entry.file.toPath());
+            if (Arrays.hashCode(data == null ? new byte[0] : data) == entry.contentHash) {
+                return;
+            }
+
+            entry.isStale = true;
+            invalidations.incrementAndGet();
+
+            List<Consumer<TrackedConfiguration>> listeners = reloadListeners.get(key);
+            if (listeners != null && !listeners.isEmpty()) {
+                TrackedConfiguration config = load(entry.file, key).config;
+                mainThread.accept(() -> {
+                    for (Consumer<TrackedConfiguration> listener : listeners) {
+                        listener.accept(config);
+                    }
+                });
+            }
+        } catch (IOException | InvalidConfigurationException e) {
+            Bukkit.getLogger().log(Level.WARNING, "Could not reload " + entry.file, e);
+        }
+    }
+
+    private static Path getKey(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Gets the number of loads served from memory.
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of loads that had to read the file.
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of cached files invalidated because they changed on disk.
+     * @return the number of invalidations
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Gets whether changes are noticed through a watch service rather than by checking modification times.
+     * @return whether files are being watched
+     */
+    public boolean isWatching() {
+        return watchService != null;
+    }
+
+    /**
+     * A cached configuration, with what is needed to tell whether its file has changed.
+     */
+    private static class Entry {
+        private final File file;
+        private final TrackedConfiguration config;
+        private final int contentHash;
+        private volatile long lastModified;
+        private volatile long length;
+        private volatile boolean isStale;
+
+        private Entry(File file, TrackedConfiguration config, int contentHash) {
+            this.file = file;
+            this.config = config;
+            this.contentHash = contentHash;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        /**
+         * Checks the file's modification time and size, for directories that cannot be watched. The entry may have
+         * been made before its save was committed, so if they differ, the file has only changed if its contents do.
+         */
+        private boolean hasFileChanged(GroupCommitWriter writer) throws IOException {
+            long modified = file.lastModified();
+            long size = file.length();
+            if (writer.isPending(file.toPath()) || (modified == lastModified && size == length)) {
+                return false;
+            }
+
+            byte[] data = writer.read(file.toPath());
+            if (Arrays.hashCode(data == null ? new byte[0] : data) != contentHash) {
+                return true;
+            }
+            lastModified = modified;
+            length = size;
+            return false;
+        }
+    }
+}
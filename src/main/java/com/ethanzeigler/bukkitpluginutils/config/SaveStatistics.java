@@ -0,0 +1,84 @@
+package com.ethanzeigler.bukkitpluginutils.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the saves BPU made and the saves and bytes it avoided by tracking changes with
+ * {@link TrackedConfiguration}.
+ */
+public class SaveStatistics {
+    private final AtomicLong fullSaves = new AtomicLong();
+    private final AtomicLong deltaSaves = new AtomicLong();
+    private final AtomicLong savesAvoided = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong bytesAvoided = new AtomicLong();
+
+    /**
+     * Records a save that rewrote the whole file.
+     * @param bytes the number of bytes written
+     */
+    public void recordFullSave(long bytes) {
+        fullSaves.incrementAndGet();
+        bytesWritten.addAndGet(bytes);
+    }
+
+    /**
+     * Records a save that only wrote the changed paths.
+     * @param bytes the number of bytes written
+     * @param fullBytes the number of bytes a full save would have written
+     */
+    public void recordDeltaSave(long bytes, long fullBytes) {
+        deltaSaves.incrementAndGet();
+        bytesWritten.addAndGet(bytes);
+        bytesAvoided.addAndGet(Math.max(0, fullBytes - bytes));
+    }
+
+    /**
+     * Records a save that was skipped because nothing changed.
+     * @param fullBytes the number of bytes a full save would have written
+     */
+    public void recordAvoidedSave(long fullBytes) {
+        savesAvoided.incrementAndGet();
+        bytesAvoided.addAndGet(fullBytes);
+    }
+
+    /**
+     * Gets the number of saves that rewrote the whole file.
+     * @return the number of full saves
+     */
+    public long getFullSaves() {
+        return fullSaves.get();
+    }
+
+    /**
+     * Gets the number of saves that only wrote the changed paths.
+     * @return the number of delta saves
+     */
+    public long getDeltaSaves() {
+        return deltaSaves.get();
+    }
+
+    /**
+     * Gets the number of saves skipped because nothing changed.
+     * @return the number of avoided saves
+     */
+    public long getSavesAvoided() {
+        return savesAvoided.get();
+    }
+
+    /**
+     * Gets the number of bytes written by full and delta saves.
+     * @return the number of bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     * Gets the number of bytes that full saves would have written on top of what was actually written.
+     * @return the number of bytes avoided
+     */
+    public long getBytesAvoided() {
+        return bytesAvoided.get();
+    }
+}
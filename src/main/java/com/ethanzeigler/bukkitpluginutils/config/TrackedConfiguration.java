@@ -0,0 +1,339 @@
+package com.ethanzeigler.bukkitpluginutils.config;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemorySection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+
+/**
+ * A {@link YamlConfiguration} that records which paths have been set since it was loaded or last saved. This lets
+ * saves of unchanged files be skipped and lets stores that support it write only the changed paths.
+ *
+ * <p>Changes made through {@link #set(String, Object)} and {@link #createSection(String)}, on this configuration or
+ * any of its sections, are tracked. Changes made directly to a list or map returned by a getter are not; call
+ * {@link #markDirty(String)} after making them.</p>
+ *
+ * <p>A configuration shared between threads can be given a {@link #setGuard(ReadWriteLock) guard}. Every read then
+ * holds the guard's read lock and every change holds its write lock, on this configuration and all of its sections,
+ * so no thread can see it half changed. Holding the write lock across several calls makes them atomic.</p>
+ */
+public class TrackedConfiguration extends YamlConfiguration {
+    private final Map<String, Long> dirtyPaths = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile ReadWriteLock guard;
+
+    /**
+     * Loads a tracked configuration from the file, the same way {@link YamlConfiguration#loadConfiguration(File)}
+     * does. If the file cannot be loaded, the error is logged and an empty configuration is returned.
+     * @param file the file to load
+     * @return the loaded configuration
+     */
+    public static TrackedConfiguration loadConfiguration(File file) {
+        TrackedConfiguration config = new TrackedConfiguration();
+        try {
+            config.load(file);
+        } catch (FileNotFoundException e) {
+            // an empty configuration, as YamlConfiguration does
+        } catch (IOException | InvalidConfigurationException e) {
+            Bukkit.getLogger().log(Level.SEVERE, "Cannot load " + file, e);
+        }
+        return config;
+    }
+
+    @Override
+    public void loadFromString(String contents) throws InvalidConfigurationException {
+        super.loadFromString(contents);
+        markClean();
+    }
+
+    @Override
+    public Object get(String path, Object def) {
+        Lock lock = lockRead();
+        try {
+            return super.get(path, def);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public Set<String> getKeys(boolean deep) {
+        Lock lock = lockRead();
+        try {
+            return super.getKeys(deep);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getValues(boolean deep) {
+        Lock lock = lockRead();
+        try {
+            return super.getValues(deep);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public void set(String path, Object value) {
+        Lock lock = lockWrite();
+        try {
+            super.set(path, value);
+            markDirty(path);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    @Override
+    public ConfigurationSection createSection(String path) {
+        Lock lock = lockWrite();
+        try {
+            ConfigurationSection section = createTrackedSection(this, map, path);
+            return section != null ? section : super.createSection(path);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Sets the lock held while this configuration or any of its sections is read or changed.
+     * @param guard the lock, or null to stop locking
+     */
+    public void setGuard(ReadWriteLock guard) {
+        this.guard = guard;
+    }
+
+    /**
+     * Gets the lock held while this configuration or any of its sections is read or changed.
+     * @return the lock, or null if the configuration is not guarded
+     */
+    public ReadWriteLock getGuard() {
+        return guard;
+    }
+
+    private Lock lockRead() {
+        ReadWriteLock current = guard;
+        if (current == null) {
+            return null;
+        }
+        Lock lock = current.readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private Lock lockWrite() {
+        ReadWriteLock current = guard;
+        if (current == null) {
+            return null;
+        }
+        if (current instanceof ReentrantReadWriteLock) {
+            ReentrantReadWriteLock reentrant = (ReentrantReadWriteLock) current;
+            if (reentrant.getReadHoldCount() > 0 && !reentrant.isWriteLockedByCurrentThread()) {
+                // waiting for the write lock here would wait for this thread forever
+                throw new IllegalStateException("Cannot change a configuration while holding its read lock");
+            }
+        }
+        Lock lock = current.writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    private static void unlock(Lock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that the path has changed.
+     * @param path the path that changed
+     */
+    public void markDirty(String path) {
+        dirtyPaths.put(path, modifications.incrementAndGet());
+    }
+
+    /**
+     * Gets whether any path has changed since the configuration was loaded or last saved.
+     * @return whether the configuration has unsaved changes
+     */
+    public boolean isDirty() {
+        return !dirtyPaths.isEmpty();
+    }
+
+    /**
+     * Gets the paths that have changed since the configuration was loaded or last saved.
+     * @return the changed paths
+     */
+    public Set<String> getDirtyPaths() {
+        return Collections.unmodifiableSet(dirtyPaths.keySet());
+    }
+
+    /**
+     * Gets the current value of every changed path. Paths inside another changed path are left out, since the outer
+     * value already contains them.
+     * @return the changes
+     */
+    public Changes getChanges() {
+        Map<String, Long> snapshot = new LinkedHashMap<>(dirtyPaths);
+        List<String> paths = new ArrayList<>(snapshot.keySet());
+        Collections.sort(paths);
+
+        char separator = options().pathSeparator();
+        Map<String, Object> values = new LinkedHashMap<>();
+        String covering = null;
+        for (String path : paths) {
+            if (covering != null && path.startsWith(covering) && path.length() > covering.length()
+                    && path.charAt(covering.length()) == separator) {
+                continue;
+            }
+            covering = path;
+            values.put(path, get(path));
+        }
+        return new Changes(values, snapshot);
+    }
+
+    /**
+     * Marks every path as saved.
+     */
+    public void markClean() {
+        dirtyPaths.clear();
+    }
+
+    /**
+     * Marks the changes as saved. Paths that changed again after the changes were taken stay dirty.
+     * @param changes the changes that were saved
+     */
+    public void markClean(Changes changes) {
+        for (Map.Entry<String, Long> entry : changes.versions.entrySet()) {
+            dirtyPaths.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static ConfigurationSection createTrackedSection(MemorySection parent, Map<String, Object> map,
+                                                             String path) {
+        if (path.indexOf(parent.getRoot().options().pathSeparator()) != -1) {
+            // nested paths are walked by MemorySection, which calls back in for each level
+            return null;
+        }
+
+        TrackedSection section = new TrackedSection(parent, path);
+        map.put(path, section);
+        ((TrackedConfiguration) parent.getRoot()).markDirty(section.getCurrentPath());
+        return section;
+    }
+
+    /**
+     * The values of changed paths, taken together so they can be marked clean once saved.
+     */
+    public static class Changes {
+        private final Map<String, Object> values;
+        private final Map<String, Long> versions;
+
+        private Changes(Map<String, Object> values, Map<String, Long> versions) {
+            this.values = Collections.unmodifiableMap(values);
+            this.versions = versions;
+        }
+
+        /**
+         * Gets the current value of each changed path. A null value means the path was removed.
+         * @return the changed values by path
+         */
+        public Map<String, Object> getValues() {
+            return values;
+        }
+
+        /**
+         * Gets whether nothing changed.
+         * @return whether there are no changes
+         */
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+    }
+
+    /**
+     * A section of a tracked configuration, which reports its changes to the root.
+     */
+    private static class TrackedSection extends MemorySection {
+        private TrackedSection(ConfigurationSection parent, String path) {
+            super(parent, path);
+        }
+
+        @Override
+        public Object get(String path, Object def) {
+            Lock lock = getTrackedRoot().lockRead();
+            try {
+                return super.get(path, def);
+            } finally {
+                unlock(lock);
+            }
+        }
+
+        @Override
+        public Set<String> getKeys(boolean deep) {
+            Lock lock = getTrackedRoot().lockRead();
+            try {
+                return super.getKeys(deep);
+            } finally {
+                unlock(lock);
+            }
+        }
+
+        @Override
+        public Map<String, Object> getValues(boolean deep) {
+            Lock lock = getTrackedRoot().lockRead();
+            try {
+                return super.getValues(deep);
+            } finally {
+                unlock(lock);
+            }
+        }
+
+        @Override
+        public void set(String path, Object value) {
+            TrackedConfiguration root = getTrackedRoot();
+            Lock lock = root.lockWrite();
+            try {
+                super.set(path, value);
+                root.markDirty(createPath(this, path));
+            } finally {
+                unlock(lock);
+            }
+        }
+
+        @Override
+        public ConfigurationSection createSection(String path) {
+            Lock lock = getTrackedRoot().lockWrite();
+            try {
+                ConfigurationSection section = createTrackedSection(this, map, path);
+                return section != null ? section : super.createSection(path);
+            } finally {
+                unlock(lock);
+            }
+        }
+
+        private TrackedConfiguration getTrackedRoot() {
+            return (TrackedConfiguration) getRoot();
+        }
+    }
+}
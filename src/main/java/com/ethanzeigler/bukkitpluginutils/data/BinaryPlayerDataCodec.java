@@ -0,0 +1,373 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores player files in a compact binary form that keeps the same key/value model as a
+ * {@link ConfigurationSection}. Values are written with a one byte type tag, and nested sections and lists are
+ * prefixed with their size so they can be skipped without being read. Objects implementing
+ * {@link ConfigurationSerializable} are written as maps with the same {@code ==} type key YAML uses. When only some
+ * paths are wanted, everything else is skipped over without being decoded.
+ *
+ * <p>Records can optionally be deflated when they are larger than a threshold. Data written by
+ * {@link YamlPlayerDataCodec} is still read, so existing player files need no migration.</p>
+ */
+public class BinaryPlayerDataCodec implements PlayerDataCodec {
+    private static final byte MAGIC = (byte) 0xB1; // never the first byte of UTF-8 text
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_STRING = 1;
+    static final byte TAG_INT = 2;
+    static final byte TAG_LONG = 3;
+    static final byte TAG_DOUBLE = 4;
+    static final byte TAG_BOOLEAN = 5;
+    static final byte TAG_LIST = 6;
+    static final byte TAG_SECTION = 7;
+    static final byte TAG_MAP = 8;
+
+    private final boolean compress;
+    private final int compressionThreshold;
+
+    /**
+     * A binary codec that does not compress records.
+     */
+    public BinaryPlayerDataCodec() {
+        this(false);
+    }
+
+    /**
+     * A binary codec
+     * @param compress whether records of 512 bytes or more should be deflated
+     */
+    public BinaryPlayerDataCodec(boolean compress) {
+        this(compress, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * A binary codec
+     * @param compress whether large records should be deflated
+     * @param compressionThreshold the size in bytes a record must reach before it is deflated
+     */
+    public BinaryPlayerDataCodec(boolean compress, int compressionThreshold) {
+        this.compress = compress;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Gets whether the data was written by a binary codec.
+     * @param data the encoded data
+     * @return whether the data is binary
+     */
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(ConfigurationSection section) throws IOException {
+        byte[] body = encodeMap(section.getValues(false));
+        boolean deflate = compress && body.length >= compressionThreshold;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + 2);
+        bytes.write(MAGIC);
+        bytes.write(deflate ? FLAG_COMPRESSED : 0);
+        if (deflate) {
+            try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+                out.write(body);
+            }
+        } else {
+            bytes.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public TrackedConfiguration decode(byte[] data) throws IOException {
+        if (!isBinary(data)) {
+            return new YamlPlayerDataCodec().decode(data);
+        }
+        TrackedConfiguration file = new TrackedConfiguration();
+        readSection(new DataInputStream(getBody(data)), file);
+        file.markClean();
+        return file;
+    }
+
+    @Override
+    public TrackedConfiguration decode(byte[] data, Set<String> paths) throws IOException {
+        if (!isBinary(data)) {
+            return new YamlPlayerDataCodec().decode(data, paths);
+        }
+
+        TrackedConfiguration file = new TrackedConfiguration();
+        readSelected(new DataInputStream(getBody(data)), file, "", paths);
+        file.markClean();
+        return file;
+    }
+
+    private static InputStream getBody(byte[] data) throws IOException {
+        if (data.length < 2) {
+            throw new IOException("Player data is missing its header");
+        }
+
+        InputStream body = new ByteArrayInputStream(data, 2, data.length - 2);
+        if ((data[1] & FLAG_COMPRESSED) != 0) {
+            body = new InflaterInputStream(body);
+        }
+        return body;
+    }
+
+    private static byte[] encodeMap(Map<?, ?> map) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeVarInt(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeString(out, String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeList(List<?> list) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeVarInt(out, list.size());
+        for (Object value : list) {
+            writeValue(out, value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String || value instanceof Character) {
+            out.writeByte(TAG_STRING);
+            writeString(out, value.toString());
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TAG_INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof List) {
+            out.writeByte(TAG_LIST);
+            writeBytes(out, encodeList((List<?>) value));
+        } else if (value instanceof ConfigurationSection) {
+            out.writeByte(TAG_SECTION);
+            writeBytes(out, encodeMap(((ConfigurationSection) value).getValues(false)));
+        } else if (value instanceof Map) {
+            out.writeByte(TAG_MAP);
+            writeBytes(out, encodeMap((Map<?, ?>) value));
+        } else if (value instanceof ConfigurationSerializable) {
+            ConfigurationSerializable serializable = (ConfigurationSerializable) value;
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY,
+                    ConfigurationSerialization.getAlias(serializable.getClass()));
+            map.putAll(serializable.serialize());
+            out.writeByte(TAG_MAP);
+            writeBytes(out, encodeMap(map));
+        } else {
+            throw new IOException("Cannot encode a value of type " + value.getClass().getName());
+        }
+    }
+
+    private static void readSection(DataInput in, ConfigurationSection section) throws IOException {
+        int size = readVarInt(in);
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            byte tag = in.readByte();
+            if (tag == TAG_SECTION) {
+                readVarInt(in); // size prefix, only needed when skipping
+                readSection(in, section.createSection(key));
+            } else {
+                section.set(key, readValue(in, tag));
+            }
+        }
+    }
+
+    /**
+     * Reads the entries of a section that are wanted, skipping the rest.
+     * @param prefix the full path of the section, or an empty string for the root
+     */
+    private static void readSelected(DataInput in, ConfigurationSection section, String prefix, Set<String> paths)
+            throws IOException {
+        int size = readVarInt(in);
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            String path = prefix.isEmpty() ? key : prefix + '.' + key;
+            byte tag = in.readByte();
+
+            if (isSelected(path, paths)) {
+                if (tag == TAG_SECTION) {
+                    readVarInt(in);
+                    readSection(in, section.createSection(key));
+                } else {
+                    section.set(key, readValue(in, tag));
+                }
+            } else if (tag == TAG_SECTION && isParentOfSelected(path, paths)) {
+                readVarInt(in);
+                readSelected(in, section.createSection(key), path, paths);
+            } else {
+                skipValue(in, tag);
+            }
+        }
+    }
+
+    private static boolean isSelected(String path, Set<String> paths) {
+        for (String selected : paths) {
+            if (path.equals(selected) || path.startsWith(selected + '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isParentOfSelected(String path, Set<String> paths) {
+        for (String selected : paths) {
+            if (selected.startsWith(path + '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void skipValue(DataInput in, byte tag) throws IOException {
+        switch (tag) {
+            case TAG_NULL:
+                return;
+            case TAG_BOOLEAN:
+                skipFully(in, 1);
+                return;
+            case TAG_INT:
+                skipFully(in, 4);
+                return;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                skipFully(in, 8);
+                return;
+            case TAG_STRING:
+            case TAG_LIST:
+            case TAG_SECTION:
+            case TAG_MAP:
+                skipFully(in, readVarInt(in));
+                return;
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    private static void skipFully(DataInput in, int bytes) throws IOException {
+        while (bytes > 0) {
+            int skipped = in.skipBytes(bytes);
+            if (skipped <= 0) {
+                in.readByte();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static Object readValue(DataInput in, byte tag) throws IOException {
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_INT:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_LIST: {
+                readVarInt(in);
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, in.readByte()));
+                }
+                return list;
+            }
+            case TAG_SECTION:
+            case TAG_MAP: {
+                readVarInt(in);
+                int size = readVarInt(in);
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    map.put(key, readValue(in, in.readByte()));
+                }
+                if (map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                    return ConfigurationSerialization.deserializeObject(map);
+                }
+                return map;
+            }
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+}
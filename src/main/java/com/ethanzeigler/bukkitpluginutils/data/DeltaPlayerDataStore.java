@@ -0,0 +1,34 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A {@link PlayerDataStore} that can store only the changes to a player's data instead of rewriting all of it.
+ * Changes are kept after the player's last full write until the next one replaces them.
+ */
+public interface DeltaPlayerDataStore extends PlayerDataStore {
+    /**
+     * Stores changes to the player's data. The player must already have a full record in the store.
+     * @param id the player's unique id
+     * @param delta the encoded changes
+     * @throws IOException if the changes cannot be written
+     */
+    public void writeDelta(UUID id, byte[] delta) throws IOException;
+
+    /**
+     * Reads the changes stored since the player's last full write, oldest first.
+     * @param id the player's unique id
+     * @return the encoded changes. Empty if there are none.
+     * @throws IOException if the changes cannot be read
+     */
+    public List<byte[]> readDeltas(UUID id) throws IOException;
+
+    /**
+     * Gets the number of changes stored since the player's last full write.
+     * @param id the player's unique id
+     * @return the number of stored changes
+     */
+    public int getDeltaCount(UUID id);
+}
@@ -0,0 +1,138 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.io.GroupCommitWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Stores each player's data in its own {@code <uuid>.txt} file in a directory. Writes and deletes go through a
+ * {@link GroupCommitWriter}, and reads see them before they are committed.
+ */
+public class DirectoryPlayerDataStore implements PlayerDataStore {
+    private static final String EXTENSION = ".txt";
+
+    private final File directory;
+    private final GroupCommitWriter writer;
+
+    /**
+     * A new directory store
+     * @param directory the directory the player files are kept in. It is created on the first write.
+     * @param writer the writer to write player files with
+     */
+    public DirectoryPlayerDataStore(File directory, GroupCommitWriter writer) {
+        this.directory = directory;
+        this.writer = writer;
+    }
+
+    @Override
+    public byte[] read(UUID id) throws IOException {
+        return writer.read(getPath(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> write(UUID id, byte[] data) {
+        return writer.write(getPath(id), data);
+    }
+
+    @Override
+    public void delete(UUID id) {
+        writer.delete(getPath(id));
+    }
+
+    @Override
+    public Set<UUID> getStoredIds() throws IOException {
+        Set<UUID> ids = new HashSet<>();
+        if (directory.isDirectory()) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), "*" + EXTENSION)) {
+                for (Path path : stream) {
+                    addId(ids, path, true);
+                }
+            }
+        }
+
+        for (Map.Entry<Path, Boolean> pending : writer.getPending(directory.toPath()).entrySet()) {
+            addId(ids, pending.getKey(), pending.getValue());
+        }
+        return ids;
+    }
+
+    @Override
+    public void forEachStoredId(Consumer<UUID> action) throws IOException {
+        Map<Path, Boolean> pending = writer.getPending(directory.toPath());
+        if (directory.isDirectory()) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), "*" + EXTENSION)) {
+                for (Path path : stream) {
+                    // pending files are given below, as they will be once committed
+                    UUID id = getId(path);
+                    if (id != null && !pending.containsKey(path)) {
+                        action.accept(id);
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<Path, Boolean> entry : pending.entrySet()) {
+            UUID id = getId(entry.getKey());
+            if (id != null && entry.getValue()) {
+                action.accept(id);
+            }
+        }
+    }
+
+    private static void addId(Set<UUID> ids, Path path, boolean exists) {
+        UUID id = getId(path);
+        if (id == null) {
+            return;
+        }
+
+        if (exists) {
+            ids.add(id);
+        } else {
+            ids.remove(id);
+        }
+    }
+
+    private static UUID getId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(EXTENSION)) {
+            return null;
+        }
+
+        try {
+            return UUID.fromString(name.substring(0, name.length() - EXTENSION.length()));
+        } catch (IllegalArgumentException e) {
+            return null; // not a player file
+        }
+    }
+
+    @Override
+    public void flush() {
+        // the writer commits on its own schedule
+    }
+
+    @Override
+    public void close() {
+        // nothing is held open
+    }
+
+    /**
+     * Gets the directory the player files are kept in.
+     * @return the player file directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    private Path getPath(UUID id) {
+        return directory.toPath().resolve(id + EXTENSION);
+    }
+}
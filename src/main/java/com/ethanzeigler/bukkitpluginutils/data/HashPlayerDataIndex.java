@@ -0,0 +1,72 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Finds the players with a given value at a path, such as every player whose rank is {@code vip}. Strings, booleans
+ * and numbers are indexed; whole numbers match whatever type they were saved as, so {@code 5} finds both an int and a
+ * long 5.
+ */
+public class HashPlayerDataIndex extends PlayerDataIndex {
+    private final Map<Object, Set<UUID>> players = new HashMap<>();
+
+    /**
+     * An index over the path
+     * @param path the path in the player file to index
+     */
+    public HashPlayerDataIndex(String path) {
+        super(path);
+    }
+
+    /**
+     * Gets every player with the value.
+     * @param value the value to look up
+     * @return the players with the value
+     */
+    public synchronized Set<UUID> get(Object value) {
+        Set<UUID> ids = players.get(normalize(value));
+        return ids == null ? Collections.<UUID>emptySet() : new LinkedHashSet<>(ids);
+    }
+
+    /**
+     * Gets the number of players with the value.
+     * @param value the value to look up
+     * @return the number of players with the value
+     */
+    public synchronized int count(Object value) {
+        Set<UUID> ids = players.get(normalize(value));
+        return ids == null ? 0 : ids.size();
+    }
+
+    @Override
+    Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof String || value instanceof Boolean) {
+            return value;
+        } else if (value instanceof Character) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    @Override
+    void add(UUID id, Object value) {
+        players.computeIfAbsent(value, key -> new LinkedHashSet<>()).add(id);
+    }
+
+    @Override
+    void remove(UUID id, Object value) {
+        Set<UUID> ids = players.get(value);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            players.remove(value);
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Stores every player's data in a single append-only file. Each write appends a new record and points an in-memory
+ * index from the player's unique id to it, so no directory has to be searched and no file has to be created per
+ * player. Reads go through a memory mapping of the file. Records that have been replaced are left behind as garbage
+ * until the file is compacted, which happens on {@link #flush()} once more than half the file is garbage. Changes
+ * written with {@link #writeDelta(UUID, byte[])} are appended after the player's full record and dropped by their next
+ * full write.
+ *
+ * <p>The file starts with a magic number (4 bytes) and flags (4 bytes). Each record is laid out as: type (1 byte),
+ * unique id (16 bytes), payload length (4 bytes), CRC32 of the payload (4 bytes), payload. A record cut short by a crash fails its length or checksum check and is dropped, along with
+ * anything after it, when the file is next opened.</p>
+ *
+ * <p>Windows does not let a file be replaced or truncated while any part of it is mapped, so every mapping is
+ * released before the file is compacted, truncated or closed, and mappings replaced as the file grows are released
+ * by the next write. Readers only use a mapping while holding the read lock, so none is released while in use.</p>
+ */
+public class IndexedPlayerDataStore implements DeltaPlayerDataStore {
+    private static final int MAGIC = 0x42505532; // "BPU2"
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int FLAG_IMPORTED = 1;
+    private static final int RECORD_HEADER_SIZE = 1 + 16 + 4 + 4;
+    private static final byte TYPE_WRITE = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final byte TYPE_DELTA = 3;
+    private static final int MAX_RECORD_SIZE = 0xFFFFFF;
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+    private static final Consumer<ByteBuffer> UNMAPPER = createUnmapper();
+
+    private final Path path;
+    private final Map<UUID, Long> index = new ConcurrentHashMap<>();
+    private final Map<UUID, List<Long>> deltas = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+    private final List<MappedByteBuffer> retiredMappings = new ArrayList<>();
+    private long end;
+    private long liveBytes;
+    private volatile int flags;
+
+    /**
+     * Opens the store, creating the file if it does not exist and rebuilding the index from it if it does.
+     * @param file the data file
+     * @throws IOException if the file cannot be opened or is not a player data file
+     */
+    public IndexedPlayerDataStore(File file) throws IOException {
+        this.path = file.toPath();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        open();
+    }
+
+    @Override
+    public byte[] read(UUID id) throws IOException {
+        lock.readLock().lock();
+        try {
+            Long location = index.get(id);
+            if (location == null) {
+                return null;
+            }
+
+            return readPayload(location);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<byte[]> readDeltas(UUID id) throws IOException {
+        lock.readLock().lock();
+        try {
+            List<Long> locations = deltas.get(id);
+            if (locations == null) {
+                return Collections.emptyList();
+            }
+
+            List<byte[]> data = new ArrayList<>(locations.size());
+            for (long location : locations) {
+                data.add(readPayload(location));
+            }
+            return data;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> write(UUID id, byte[] data) throws IOException {
+        if (data.length > MAX_RECORD_SIZE) {
+            throw new IOException(String.format("Player data for %s is too large: %d bytes", id, data.length));
+        }
+
+        lock.writeLock().lock();
+        try {
+            releaseRetiredMappings();
+            long offset = append(TYPE_WRITE, id, data);
+            replace(id, index.put(id, pack(offset, data.length)));
+            liveBytes += RECORD_HEADER_SIZE + data.length;
+            return CompletableFuture.completedFuture(null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void writeDelta(UUID id, byte[] delta) throws IOException {
+        if (delta.length > MAX_RECORD_SIZE) {
+            throw new IOException(String.format("Player data delta for %s is too large: %d bytes", id, delta.length));
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(id)) {
+                throw new IOException("Cannot write a delta for a player with no stored data: " + id);
+            }
+            releaseRetiredMappings();
+            long offset = append(TYPE_DELTA, id, delta);
+            deltas.computeIfAbsent(id, key -> new ArrayList<>()).add(pack(offset, delta.length));
+            liveBytes += RECORD_HEADER_SIZE + delta.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int getDeltaCount(UUID id) {
+        List<Long> locations = deltas.get(id);
+        return locations == null ? 0 : locations.size();
+    }
+
+    @Override
+    public void delete(UUID id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(id)) {
+                append(TYPE_DELETE, id, new byte[0]);
+                replace(id, index.remove(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<UUID> getStoredIds() {
+        return new HashSet<>(index.keySet());
+    }
+
+    @Override
+    public void forEachStoredId(Consumer<UUID> action) {
+        index.keySet().forEach(action);
+    }
+
+    /**
+     * Forces every write to disk, then compacts the file if more than half of it is garbage.
+     * @throws IOException if the file cannot be forced or compacted
+     */
+    @Override
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.force(false);
+            long dataBytes = end - FILE_HEADER_SIZE;
+            if (dataBytes >= MIN_COMPACTION_SIZE && liveBytes * 2 < dataBytes) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the file with only the current record and deltas of each player, dropping replaced and deleted
+     * records.
+     * @throws IOException if the compacted file cannot be written
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Path temp = path.resolveSibling(path.getFileName() + ".compact");
+            ByteBuffer source = getMapping(end);
+
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(out, fileHeader(), 0);
+                long position = FILE_HEADER_SIZE;
+                for (Map.Entry<UUID, Long> entry : index.entrySet()) {
+                    position = copyRecord(source, entry.getValue(), out, position);
+                    List<Long> locations = deltas.get(entry.getKey());
+                    if (locations != null) {
+                        for (long location : locations) {
+                            position = copyRecord(source, location, out, position);
+                        }
+                    }
+                }
+                out.force(true);
+            }
+
+            // the old file cannot be replaced on Windows while it is mapped or open
+            releaseMappings();
+            channel.close();
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                // reopening rebuilds the index from whichever file is in place
+                Files.deleteIfExists(temp);
+                open();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.force(false);
+            releaseMappings();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copies every player's data from another store into this one. Players already in this store are overwritten.
+     * Once everything is on disk, the file is marked as {@link #isImported() imported}, so a crash part way through
+     * leaves it unmarked.
+     * @param source the store to copy from
+     * @return the number of players copied
+     * @throws IOException if the source cannot be read or this store cannot be written
+     */
+    public int importFrom(PlayerDataStore source) throws IOException {
+        int count = 0;
+        for (UUID id : source.getStoredIds()) {
+            byte[] data = source.read(id);
+            if (data != null) {
+                write(id, data);
+                count++;
+            }
+        }
+        flush();
+
+        lock.writeLock().lock();
+        try {
+            flags |= FLAG_IMPORTED;
+            writeFully(channel, fileHeader(), 0);
+            channel.force(false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return count;
+    }
+
+    /**
+     * Gets whether another store has been completely copied into this one with {@link #importFrom(PlayerDataStore)}.
+     * @return whether an import has finished
+     */
+    public boolean isImported() {
+        return (flags & FLAG_IMPORTED) != 0;
+    }
+
+    /**
+     * Gets the number of bytes in the file taken up by players' current data.
+     * @return the number of live bytes
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Gets the size of the file in bytes, including replaced records that have not been compacted away.
+     * @return the size of the file
+     */
+    public long getFileSize() {
+        return end;
+    }
+
+    /**
+     * Opens the channel, writing the header to a new file or rebuilding the index from an existing one.
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            flags = 0;
+            writeFully(channel, fileHeader(), 0);
+            end = FILE_HEADER_SIZE;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // read the whole header
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a player data file: " + path);
+            }
+            flags = header.getInt(4);
+            end = size;
+            rebuildIndex();
+        }
+        mapped = map(end);
+    }
+
+    /**
+     * Reads every record in the file to rebuild the index. A torn or corrupt record ends the scan and the file is
+     * truncated to the last good record.
+     */
+    private void rebuildIndex() throws IOException {
+        MappedByteBuffer buffer = map(end);
+        try {
+            end = scan(buffer);
+        } finally {
+            // the file cannot be truncated on Windows while it is mapped
+            UNMAPPER.accept(buffer);
+        }
+
+        if (end < channel.size()) {
+            channel.truncate(end);
+        }
+    }
+
+    /**
+     * Reads records from the mapped file into the index until the end or the first torn or corrupt record.
+     * @return the position after the last good record
+     */
+    private long scan(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        long position = FILE_HEADER_SIZE;
+        index.clear();
+        deltas.clear();
+        liveBytes = 0;
+
+        while (position + RECORD_HEADER_SIZE <= end) {
+            buffer.position((int) position);
+            byte type = buffer.get();
+            UUID id = new UUID(buffer.getLong(), buffer.getLong());
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if ((type != TYPE_WRITE && type != TYPE_DELETE && type != TYPE_DELTA) || length < 0
+                    || position + RECORD_HEADER_SIZE + length > end) {
+                break;
+            }
+
+            ByteBuffer payload = buffer.duplicate();
+            payload.limit(buffer.position() + length);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            if (type == TYPE_WRITE) {
+                replace(id, index.put(id, pack(position + RECORD_HEADER_SIZE, length)));
+                liveBytes += RECORD_HEADER_SIZE + length;
+            } else if (type == TYPE_DELETE) {
+                replace(id, index.remove(id));
+            } else if (index.containsKey(id)) {
+                deltas.computeIfAbsent(id, key -> new ArrayList<>()).add(pack(position + RECORD_HEADER_SIZE, length));
+                liveBytes += RECORD_HEADER_SIZE + length;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    /**
+     * Appends a record to the end of the file.
+     * @return the offset of the record's payload
+     */
+    private long append(byte type, UUID id, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + data.length);
+        record.put(type)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .putInt(data.length)
+                .putInt((int) crc.getValue())
+                .put(data)
+                .flip();
+
+        long recordStart = end;
+        writeFully(channel, record, recordStart);
+        end += record.capacity();
+        return recordStart + RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * Accounts for a player's previous record and its deltas becoming garbage.
+     */
+    private void replace(UUID id, Long previous) {
+        if (previous != null) {
+            liveBytes -= RECORD_HEADER_SIZE + getLength(previous);
+        }
+
+        List<Long> previousDeltas = deltas.remove(id);
+        if (previousDeltas != null) {
+            for (long location : previousDeltas) {
+                liveBytes -= RECORD_HEADER_SIZE + getLength(location);
+            }
+        }
+    }
+
+    private byte[] readPayload(long location) throws IOException {
+        long offset = getOffset(location);
+        byte[] data = new byte[getLength(location)];
+        ByteBuffer buffer = getMapping(offset + data.length).duplicate();
+        buffer.position((int) offset);
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Copies a whole record, header included, to the end of another file.
+     * @return the position after the copied record
+     */
+    private static long copyRecord(ByteBuffer source, long location, FileChannel out, long position)
+            throws IOException {
+        long recordStart = getOffset(location) - RECORD_HEADER_SIZE;
+        int recordSize = RECORD_HEADER_SIZE + getLength(location);
+
+        ByteBuffer record = source.duplicate();
+        record.position((int) recordStart);
+        record.limit((int) recordStart + recordSize);
+        writeFully(out, record, position);
+        return position + recordSize;
+    }
+
+    /**
+     * Gets a mapping of the file covering at least the given number of bytes, remapping if the file has grown.
+     */
+    private ByteBuffer getMapping(long size) throws IOException {
+        MappedByteBuffer current = mapped;
+        if (current.capacity() >= size) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (mapped.capacity() < size) {
+                // other readers may still be using the old mapping, so it is released by the next write
+                retiredMappings.add(mapped);
+                mapped = map(end);
+            }
+            return mapped;
+        }
+    }
+
+    /**
+     * Releases mappings replaced as the file grew. Must be called while holding the write lock, so no reader is using
+     * them.
+     */
+    private synchronized void releaseRetiredMappings() {
+        for (MappedByteBuffer retired : retiredMappings) {
+            UNMAPPER.accept(retired);
+        }
+        retiredMappings.clear();
+    }
+
+    /**
+     * Releases every mapping of the file. Must be called while holding the write lock.
+     */
+    private synchronized void releaseMappings() {
+        releaseRetiredMappings();
+        if (mapped != null) {
+            UNMAPPER.accept(mapped);
+            mapped = null;
+        }
+    }
+
+    /**
+     * Finds a way to release a mapping before it is garbage collected. Java 9 and later have
+     * {@code Unsafe.invokeCleaner}; Java 8 has the buffer's cleaner. If neither can be reached, mappings are left to
+     * the garbage collector, which is enough everywhere but Windows.
+     */
+    private static Consumer<ByteBuffer> createUnmapper() {
+        try {
+            Class<?> unsafeType = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeType.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeType.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            return buffer -> {
+                try {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } catch (ReflectiveOperationException | RuntimeException ignored) {
+                    // left to the garbage collector
+                }
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+            return buffer -> {
+                try {
+                    Method getCleaner = buffer.getClass().getMethod("cleaner");
+                    getCleaner.setAccessible(true);
+                    Object cleaner = getCleaner.invoke(buffer);
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                } catch (ReflectiveOperationException | RuntimeException ignored) {
+                    // left to the garbage collector
+                }
+            };
+        }
+    }
+
+    private MappedByteBuffer map(long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Player data file is too large to map: " + path);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    private ByteBuffer fileHeader() {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(flags).flip();
+        return header;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Packs a payload offset and length into one long so the index holds a single object per player.
+     */
+    private static long pack(long offset, int length) {
+        return offset << 24 | length;
+    }
+
+    private static long getOffset(long location) {
+        return location >>> 24;
+    }
+
+    private static int getLength(long location) {
+        return (int) (location & 0xFFFFFF);
+    }
+}
@@ -0,0 +1,40 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Turns player files into the bytes kept in a {@link PlayerDataStore} and back.
+ */
+public interface PlayerDataCodec {
+    /**
+     * Encodes every value in the section.
+     * @param section the section to encode
+     * @return the encoded section
+     * @throws IOException if a value cannot be encoded
+     */
+    public byte[] encode(ConfigurationSection section) throws IOException;
+
+    /**
+     * Decodes a player file.
+     * @param data the encoded file
+     * @return the decoded file, with no unsaved changes
+     * @throws IOException if the data is not a valid player file
+     */
+    public TrackedConfiguration decode(byte[] data) throws IOException;
+
+    /**
+     * Decodes only the given paths of a player file. Codecs that can skip unwanted values without reading them should
+     * override this; by default the whole file is decoded and the paths are copied out.
+     * @param data the encoded file
+     * @param paths the paths to decode
+     * @return a file containing only the given paths, with no unsaved changes
+     * @throws IOException if the data is not a valid player file
+     */
+    public default TrackedConfiguration decode(byte[] data, Set<String> paths) throws IOException {
+        return PlayerDataDelta.project(decode(data), paths);
+    }
+}
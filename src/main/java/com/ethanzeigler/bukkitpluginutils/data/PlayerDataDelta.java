@@ -0,0 +1,154 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Encodes and applies the changes written to a {@link DeltaPlayerDataStore}. A delta is stored as a list of
+ * path/value pairs using the store's {@link PlayerDataCodec}; a pair without a value removes the path.
+ */
+public final class PlayerDataDelta {
+    private static final String CHANGES_KEY = "changes";
+    private static final String PATH_KEY = "path";
+    private static final String VALUE_KEY = "value";
+
+    private PlayerDataDelta() {
+    }
+
+    /**
+     * Encodes the changes of a tracked configuration.
+     * @param codec the codec to encode with
+     * @param changes the changes to encode
+     * @return the encoded delta
+     * @throws IOException if a value cannot be encoded
+     */
+    public static byte[] encode(PlayerDataCodec codec, TrackedConfiguration.Changes changes) throws IOException {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (Map.Entry<String, Object> change : changes.getValues().entrySet()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put(PATH_KEY, change.getKey());
+            if (change.getValue() != null) {
+                entry.put(VALUE_KEY, toPlainValue(change.getValue()));
+            }
+            entries.add(entry);
+        }
+
+        TrackedConfiguration delta = new TrackedConfiguration();
+        delta.set(CHANGES_KEY, entries);
+        return codec.encode(delta);
+    }
+
+    /**
+     * Applies an encoded delta to a player file.
+     * @param codec the codec the delta was encoded with
+     * @param delta the encoded delta
+     * @param target the player file to change
+     * @throws IOException if the delta cannot be decoded
+     */
+    public static void apply(PlayerDataCodec codec, byte[] delta, ConfigurationSection target) throws IOException {
+        List<?> entries = codec.decode(delta).getList(CHANGES_KEY);
+        if (entries == null) {
+            throw new IOException("Player data delta has no changes");
+        }
+
+        for (Object entry : entries) {
+            Map<?, ?> change = (Map<?, ?>) entry;
+            // a map value replaces the whole section at the path
+            copyValue(target, (String) change.get(PATH_KEY), change.get(VALUE_KEY));
+        }
+    }
+
+    /**
+     * Reads a player's file from a store, applying any deltas stored after the last full write.
+     * @param store the store to read from
+     * @param codec the codec the data was encoded with
+     * @param id the player's unique id
+     * @return the player's file with no unsaved changes, or null if nothing is stored for the player
+     * @throws IOException if the data cannot be read or decoded
+     */
+    public static TrackedConfiguration read(PlayerDataStore store, PlayerDataCodec codec, UUID id)
+            throws IOException {
+        byte[] data = store.read(id);
+        return data == null ? null : decode(store, codec, id, data);
+    }
+
+    /**
+     * Decodes a player's full record read from a store, applying any deltas stored after it.
+     * @param store the store the record was read from
+     * @param codec the codec the data was encoded with
+     * @param id the player's unique id
+     * @param data the player's full record
+     * @return the player's file with no unsaved changes
+     * @throws IOException if the deltas cannot be read or the data cannot be decoded
+     */
+    public static TrackedConfiguration decode(PlayerDataStore store, PlayerDataCodec codec, UUID id, byte[] data)
+            throws IOException {
+        TrackedConfiguration file = codec.decode(data);
+        if (store instanceof DeltaPlayerDataStore) {
+            for (byte[] delta : ((DeltaPlayerDataStore) store).readDeltas(id)) {
+                apply(codec, delta, file);
+            }
+            file.markClean();
+        }
+        return file;
+    }
+
+    /**
+     * Copies the given paths of a player file into a new file.
+     * @param file the file to copy from
+     * @param paths the paths to copy
+     * @return a file containing only the given paths, with no unsaved changes
+     */
+    public static TrackedConfiguration project(ConfigurationSection file, Set<String> paths) {
+        TrackedConfiguration projection = new TrackedConfiguration();
+        for (String path : paths) {
+            Object value = file.get(path);
+            if (value != null) {
+                copyValue(projection, path, value);
+            }
+        }
+        projection.markClean();
+        return projection;
+    }
+
+    /**
+     * Sets a path to a value taken from another file or decoded from a delta. Sections are copied rather than moved,
+     * so the value's file is left unchanged, and maps become sections, as they would when a file is loaded.
+     * @param target the file to set the value in
+     * @param path the path to set
+     * @param value the value, or null to remove the path
+     */
+    static void copyValue(ConfigurationSection target, String path, Object value) {
+        if (value instanceof ConfigurationSection) {
+            value = toPlainValue(value);
+        }
+        if (value instanceof Map) {
+            target.createSection(path, (Map<?, ?>) value);
+        } else {
+            target.set(path, value);
+        }
+    }
+
+    /**
+     * Converts sections to maps so they can be stored inside a list or copied to another file.
+     */
+    private static Object toPlainValue(Object value) {
+        if (!(value instanceof ConfigurationSection)) {
+            return value;
+        }
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : ((ConfigurationSection) value).getValues(false).entrySet()) {
+            map.put(entry.getKey(), toPlainValue(entry.getValue()));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,152 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An index over the value each player has at one path of their player file. Indexes are kept up to date as player
+ * files are saved through {@link com.ethanzeigler.bukkitpluginutils.BukkitUtilPlugin#savePlayerFile}; changes to a
+ * player file that are never saved are not indexed.
+ *
+ * <p>An index is built in the background the first time it is used and saved when the plugin is disabled, so later
+ * starts can load it instead. Queries made before it is {@link #isReady() ready} may miss players.</p>
+ */
+public abstract class PlayerDataIndex {
+    private static final Object NONE = new Object();
+
+    private final String path;
+    private final Map<UUID, Object> values = new HashMap<>();
+    private volatile boolean isReady;
+
+    PlayerDataIndex(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Gets the path in the player file that is indexed.
+     * @return the indexed path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets whether the index has been built or loaded and contains every player.
+     * @return whether the index is complete
+     */
+    public boolean isReady() {
+        return isReady;
+    }
+
+    /**
+     * Gets the number of players with an indexed value.
+     * @return the number of indexed players
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Object value : values.values()) {
+            if (value != NONE) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    void setReady() {
+        isReady = true;
+    }
+
+    /**
+     * Replaces the player's indexed value.
+     * @param value the player's value at the path, or null if they have none
+     */
+    synchronized void update(UUID id, Object value) {
+        Object normalized = value == null ? null : normalize(value);
+        Object previous = values.put(id, normalized == null ? NONE : normalized);
+        if (previous != null && previous != NONE) {
+            remove(id, previous);
+        }
+        if (normalized != null) {
+            add(id, normalized);
+        }
+    }
+
+    /**
+     * Indexes the player's value unless it has already been updated, so values read while building never replace
+     * newer ones saved in the meantime.
+     */
+    synchronized void updateIfAbsent(UUID id, Object value) {
+        if (!values.containsKey(id)) {
+            update(id, value);
+        }
+    }
+
+    synchronized void write(DataOutput out) throws IOException {
+        BinaryPlayerDataCodec.writeString(out, path);
+        BinaryPlayerDataCodec.writeVarInt(out, size());
+        for (Map.Entry<UUID, Object> entry : values.entrySet()) {
+            if (entry.getValue() == NONE) {
+                continue;
+            }
+            out.writeLong(entry.getKey().getMostSignificantBits());
+            out.writeLong(entry.getKey().getLeastSignificantBits());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    synchronized void read(DataInput in) throws IOException {
+        if (!path.equals(BinaryPlayerDataCodec.readString(in))) {
+            throw new IOException("Index is for a different path");
+        }
+        int size = BinaryPlayerDataCodec.readVarInt(in);
+        for (int i = 0; i < size; i++) {
+            update(new UUID(in.readLong(), in.readLong()), readValue(in));
+        }
+    }
+
+    /**
+     * Converts a value from a player file to the form it is indexed by.
+     * @return the indexed form, or null if the value cannot be indexed
+     */
+    abstract Object normalize(Object value);
+
+    abstract void add(UUID id, Object value);
+
+    abstract void remove(UUID id, Object value);
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value instanceof Long) {
+            out.writeByte(BinaryPlayerDataCodec.TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(BinaryPlayerDataCodec.TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BinaryPlayerDataCodec.TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else {
+            out.writeByte(BinaryPlayerDataCodec.TAG_STRING);
+            BinaryPlayerDataCodec.writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case BinaryPlayerDataCodec.TAG_LONG:
+                return in.readLong();
+            case BinaryPlayerDataCodec.TAG_DOUBLE:
+                return in.readDouble();
+            case BinaryPlayerDataCodec.TAG_BOOLEAN:
+                return in.readBoolean();
+            case BinaryPlayerDataCodec.TAG_STRING:
+                return BinaryPlayerDataCodec.readString(in);
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.io.GroupCommitWriter;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds a plugin's player data indexes and saves each one to its own file in a directory next to the player data.
+ *
+ * <p>A saved index is deleted as soon as it is loaded and only written again when the plugin is disabled, so an index
+ * left behind by a crash is never trusted; it is rebuilt from the player data instead.</p>
+ */
+public class PlayerDataIndexes {
+    private static final int MAGIC = 0x42505549;
+    private static final String EXTENSION = ".idx";
+
+    private final File directory;
+    private final GroupCommitWriter writer;
+    private final Logger logger;
+    private final Map<String, HashPlayerDataIndex> hashIndexes = new LinkedHashMap<>();
+    private final Map<String, SortedPlayerDataIndex> sortedIndexes = new LinkedHashMap<>();
+
+    /**
+     * Indexes saved in the directory
+     * @param directory the directory indexes are saved in. It is created when they are first saved.
+     * @param writer the writer to save indexes with
+     * @param logger the logger to report indexes that cannot be loaded or saved to
+     */
+    public PlayerDataIndexes(File directory, GroupCommitWriter writer, Logger logger) {
+        this.directory = directory;
+        this.writer = writer;
+        this.logger = logger;
+    }
+
+    /**
+     * Creates an index for each path, loading any that were saved.
+     * @param hashPaths the paths to create hash indexes for
+     * @param sortedPaths the paths to create sorted indexes for
+     * @return the indexes that could not be loaded and must be built
+     */
+    public List<PlayerDataIndex> load(Collection<String> hashPaths, Collection<String> sortedPaths) {
+        List<PlayerDataIndex> unbuilt = new ArrayList<>();
+        for (String path : hashPaths) {
+            HashPlayerDataIndex index = new HashPlayerDataIndex(path);
+            hashIndexes.put(path, index);
+            load(index, "hash-", unbuilt);
+        }
+        for (String path : sortedPaths) {
+            SortedPlayerDataIndex index = new SortedPlayerDataIndex(path);
+            sortedIndexes.put(path, index);
+            load(index, "sorted-", unbuilt);
+        }
+        return unbuilt;
+    }
+
+    private void load(PlayerDataIndex index, String prefix, List<PlayerDataIndex> unbuilt) {
+        Path file = getFile(prefix, index.getPath());
+        try {
+            byte[] data = writer.read(file);
+            if (data != null) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+                if (in.readInt() == MAGIC) {
+                    index.read(in);
+                    index.setReady();
+                    writer.delete(file);
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not load player data index " + file + ", rebuilding it", e);
+        }
+
+        unbuilt.add(replace(index));
+    }
+
+    /**
+     * Replaces a partly loaded index with an empty one.
+     */
+    private PlayerDataIndex replace(PlayerDataIndex index) {
+        if (index instanceof HashPlayerDataIndex) {
+            HashPlayerDataIndex empty = new HashPlayerDataIndex(index.getPath());
+            hashIndexes.put(index.getPath(), empty);
+            return empty;
+        } else {
+            SortedPlayerDataIndex empty = new SortedPlayerDataIndex(index.getPath());
+            sortedIndexes.put(index.getPath(), empty);
+            return empty;
+        }
+    }
+
+    /**
+     * Builds indexes from a scan of every player's data. Call this with the indexes {@link #load} returned, from the
+     * visitor of a scan selecting their paths, then {@link #setBuilt(Collection)} once the scan is done.
+     * @param indexes the indexes being built
+     * @param id the scanned player
+     * @param data the scanned player's data
+     */
+    public static void build(Collection<PlayerDataIndex> indexes, UUID id, ConfigurationSection data) {
+        for (PlayerDataIndex index : indexes) {
+            index.updateIfAbsent(id, data.get(index.getPath()));
+        }
+    }
+
+    /**
+     * Marks built indexes as ready.
+     * @param indexes the indexes that were built
+     */
+    public static void setBuilt(Collection<PlayerDataIndex> indexes) {
+        for (PlayerDataIndex index : indexes) {
+            index.setReady();
+        }
+    }
+
+    /**
+     * Updates every index with the player's saved file.
+     * @param id the player's unique id
+     * @param file the player's file
+     */
+    public void update(UUID id, ConfigurationSection file) {
+        for (PlayerDataIndex index : hashIndexes.values()) {
+            index.update(id, file.get(index.getPath()));
+        }
+        for (PlayerDataIndex index : sortedIndexes.values()) {
+            index.update(id, file.get(index.getPath()));
+        }
+    }
+
+    /**
+     * Saves every ready index. Indexes still being built are left to be rebuilt on the next start.
+     */
+    public void save() {
+        for (PlayerDataIndex index : hashIndexes.values()) {
+            save(index, "hash-");
+        }
+        for (PlayerDataIndex index : sortedIndexes.values()) {
+            save(index, "sorted-");
+        }
+    }
+
+    private void save(PlayerDataIndex index, String prefix) {
+        if (!index.isReady()) {
+            return;
+        }
+
+        Path file = getFile(prefix, index.getPath());
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            index.write(out);
+            writer.write(file, bytes.toByteArray());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not save player data index " + file, e);
+        }
+    }
+
+    /**
+     * Gets the hash index of the path.
+     * @param path the indexed path
+     * @return the index, or null if the path has no hash index
+     */
+    public HashPlayerDataIndex getHashIndex(String path) {
+        return hashIndexes.get(path);
+    }
+
+    /**
+     * Gets the sorted index of the path.
+     * @param path the indexed path
+     * @return the index, or null if the path has no sorted index
+     */
+    public SortedPlayerDataIndex getSortedIndex(String path) {
+        return sortedIndexes.get(path);
+    }
+
+    private Path getFile(String prefix, String path) {
+        try {
+            return directory.toPath().resolve(prefix + URLEncoder.encode(path, "UTF-8") + EXTENSION);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e); // UTF-8 is always supported
+        }
+    }
+}
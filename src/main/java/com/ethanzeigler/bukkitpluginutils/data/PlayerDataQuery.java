@@ -0,0 +1,72 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Describes which players a {@link PlayerDataScanner} should visit and which of their values it should read. Only the
+ * selected paths and the paths used in filters are decoded, so values a scan does not need are skipped where the codec
+ * allows it.
+ */
+public class PlayerDataQuery {
+    private final Set<String> selectedPaths = new LinkedHashSet<>();
+    private final Map<String, Predicate<Object>> filters = new LinkedHashMap<>();
+    private boolean isSelectingAll = true;
+
+    /**
+     * Only reads the given paths, plus any used by filters. Without this, every value is read.
+     * @param paths the paths to read
+     * @return this query
+     */
+    public PlayerDataQuery select(String... paths) {
+        Collections.addAll(selectedPaths, paths);
+        isSelectingAll = false;
+        return this;
+    }
+
+    /**
+     * Only visits players whose value at the path matches the predicate. The predicate is given null if the player
+     * has no value at the path.
+     * @param path the path to test
+     * @param predicate the test
+     * @return this query
+     */
+    public PlayerDataQuery where(String path, Predicate<Object> predicate) {
+        filters.merge(path, predicate, Predicate::and);
+        return this;
+    }
+
+    /**
+     * Gets every path the query needs to read.
+     * @return the paths to read, or null if every value is needed
+     */
+    public Set<String> getPaths() {
+        if (isSelectingAll) {
+            return null;
+        }
+
+        Set<String> paths = new LinkedHashSet<>(selectedPaths);
+        paths.addAll(filters.keySet());
+        return paths;
+    }
+
+    /**
+     * Tests a player's data against every filter.
+     * @param data the player's data
+     * @return whether the player should be visited
+     */
+    public boolean matches(ConfigurationSection data) {
+        for (Map.Entry<String, Predicate<Object>> filter : filters.entrySet()) {
+            if (!filter.getValue().test(data.get(filter.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
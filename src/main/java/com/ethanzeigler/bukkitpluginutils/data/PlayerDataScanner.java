@@ -0,0 +1,255 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Visits the stored data of every player, on and offline, using several threads. Player ids are streamed from the
+ * store in small batches and only a few batches are decoded at a time, so a scan uses about the same amount of memory
+ * however many players there are. Scans block until they finish and must never be run on the main thread.
+ *
+ * <p>The visitor and progress listener are called from the scanner's worker threads, possibly at the same time, so
+ * anything they collect into must be thread safe. The first few players that fail in each scan are logged with their
+ * cause; the rest are only counted.</p>
+ *
+ * <p>Every scanner shares one pool of threads. Each plugin {@link #retainShared() retains} it while it is enabled and
+ * {@link #releaseShared() releases} it when it is disabled; the threads are stopped once the last plugin releases it,
+ * so one plugin being disabled does not stop another plugin's scan.</p>
+ */
+public class PlayerDataScanner {
+    private static final int BATCH_SIZE = 64;
+    private static final int BATCHES_PER_THREAD = 2;
+    private static final int MAX_LOGGED_FAILURES = 10;
+    private static ForkJoinPool pool;
+    private static int sharedUsers;
+
+    private final PlayerDataStore store;
+    private final PlayerDataCodec codec;
+    private final Logger logger;
+
+    /**
+     * A scanner over the store that logs failures to the server's logger
+     * @param store the store to read players' data from
+     * @param codec the codec the store's data was written with
+     */
+    public PlayerDataScanner(PlayerDataStore store, PlayerDataCodec codec) {
+        this(store, codec, Bukkit.getLogger());
+    }
+
+    /**
+     * A scanner over the store
+     * @param store the store to read players' data from
+     * @param codec the codec the store's data was written with
+     * @param logger the logger to log players that could not be scanned to
+     */
+    public PlayerDataScanner(PlayerDataStore store, PlayerDataCodec codec, Logger logger) {
+        this.store = store;
+        this.codec = codec;
+        this.logger = logger;
+    }
+
+    /**
+     * Visits every player whose data matches the query.
+     * @param query the values to read and the filters players must match
+     * @param visitor called with each matching player's id and the values the query selected
+     * @param listener told how far the scan has got after each batch, or null
+     * @return the number of players scanned, matched and failed
+     * @throws IOException if the store cannot be listed
+     */
+    public Result scan(PlayerDataQuery query, BiConsumer<UUID, ConfigurationSection> visitor,
+                       ProgressListener listener) throws IOException {
+        ForkJoinPool pool = getPool();
+        int maxBatches = pool.getParallelism() * BATCHES_PER_THREAD;
+        Semaphore batches = new Semaphore(maxBatches);
+        Result result = new Result();
+        Set<String> paths = query.getPaths();
+        long start = System.nanoTime();
+
+        List<List<UUID>> batch = new ArrayList<>(1);
+        batch.add(new ArrayList<>(BATCH_SIZE));
+        store.forEachStoredId(id -> {
+            batch.get(0).add(id);
+            if (batch.get(0).size() == BATCH_SIZE) {
+                submit(pool, batches, batch.get(0), query, paths, visitor, listener, result);
+                batch.set(0, new ArrayList<>(BATCH_SIZE));
+            }
+        });
+        if (!batch.get(0).isEmpty()) {
+            submit(pool, batches, batch.get(0), query, paths, visitor, listener, result);
+        }
+
+        // every batch has finished once all the permits are back
+        batches.acquireUninterruptibly(maxBatches);
+        batches.release(maxBatches);
+        result.nanos = System.nanoTime() - start;
+        if (result.getFailed() > MAX_LOGGED_FAILURES) {
+            logger.warning(String.format("%d more players could not be scanned",
+                    result.getFailed() - MAX_LOGGED_FAILURES));
+        }
+        return result;
+    }
+
+    /**
+     * Waits for room for another batch, then decodes it on the pool.
+     */
+    private void submit(ForkJoinPool pool, Semaphore batches, List<UUID> ids, PlayerDataQuery query,
+                        Set<String> paths, BiConsumer<UUID, ConfigurationSection> visitor,
+                        ProgressListener listener, Result result) {
+        batches.acquireUninterruptibly();
+        try {
+            pool.execute(() -> {
+                try {
+                    for (UUID id : ids) {
+                        visit(id, query, paths, visitor, result);
+                    }
+                    if (listener != null) {
+                        listener.onProgress(result.getScanned(), result.getMatched());
+                    }
+                } finally {
+                    batches.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            batches.release();
+            throw e;
+        }
+    }
+
+    private void visit(UUID id, PlayerDataQuery query, Set<String> paths,
+                       BiConsumer<UUID, ConfigurationSection> visitor, Result result) {
+        result.scanned.incrementAndGet();
+        try {
+            ConfigurationSection data = read(id, paths);
+            if (data != null && query.matches(data)) {
+                result.matched.incrementAndGet();
+                visitor.accept(id, data);
+            }
+        } catch (Exception e) {
+            if (result.failed.incrementAndGet() <= MAX_LOGGED_FAILURES) {
+                logger.log(Level.WARNING, "Could not scan player " + id, e);
+            }
+        }
+    }
+
+    /**
+     * Reads only the wanted paths of the player's data. Players with deltas are decoded in full, since a delta may
+     * change any path.
+     */
+    private ConfigurationSection read(UUID id, Set<String> paths) throws IOException {
+        byte[] data = store.read(id);
+        if (data == null) {
+            return null; // deleted since it was listed
+        }
+
+        boolean hasDeltas = store instanceof DeltaPlayerDataStore
+                && ((DeltaPlayerDataStore) store).getDeltaCount(id) > 0;
+        if (paths == null) {
+            return PlayerDataDelta.decode(store, codec, id, data);
+        } else if (hasDeltas) {
+            return PlayerDataDelta.project(PlayerDataDelta.decode(store, codec, id, data), paths);
+        } else {
+            return codec.decode(data, paths);
+        }
+    }
+
+    /**
+     * Counts the caller as a user of the scanner threads, so they are not stopped while it may scan. Each call must be
+     * matched by a call to {@link #releaseShared()}.
+     */
+    public static synchronized void retainShared() {
+        sharedUsers++;
+    }
+
+    /**
+     * Stops using the scanner threads. Once no plugin is using them, they are stopped after the batches already given
+     * to them are done. A later scan starts new ones.
+     */
+    public static synchronized void releaseShared() {
+        if (sharedUsers > 0) {
+            sharedUsers--;
+        }
+        if (sharedUsers == 0 && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("BukkitPluginUtils Scanner " + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    /**
+     * Told how far a scan has got.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each batch of players is scanned.
+         * @param scanned the number of players scanned so far
+         * @param matched the number of those that matched the query
+         */
+        public void onProgress(long scanned, long matched);
+    }
+
+    /**
+     * The outcome of a finished scan.
+     */
+    public static class Result {
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong matched = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile long nanos;
+
+        /**
+         * Gets the number of players scanned.
+         * @return the number of players scanned
+         */
+        public long getScanned() {
+            return scanned.get();
+        }
+
+        /**
+         * Gets the number of players that matched the query and were visited.
+         * @return the number of players visited
+         */
+        public long getMatched() {
+            return matched.get();
+        }
+
+        /**
+         * Gets the number of players whose data could not be read, or whose visit threw an exception.
+         * @return the number of failed players
+         */
+        public long getFailed() {
+            return failed.get();
+        }
+
+        /**
+         * Gets how long the scan took.
+         * @return the scan's duration in milliseconds
+         */
+        public long getMillis() {
+            return nanos / 1000000;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Represents a place player data can be stored. A store only deals in raw bytes; turning them into a
+ * {@link org.bukkit.configuration.file.FileConfiguration} is done by the {@link PlayerFileCache}.
+ */
+public interface PlayerDataStore {
+    /**
+     * Reads the player's stored data.
+     * @param id the player's unique id
+     * @return the player's data, or null if nothing is stored for the player
+     * @throws IOException if the data cannot be read
+     */
+    public byte[] read(UUID id) throws IOException;
+
+    /**
+     * Replaces the player's stored data. Stores that write in the background return before the data is written, but
+     * reads see it right away.
+     * @param id the player's unique id
+     * @param data the player's data
+     * @return a future completed once the data is written, or completed exceptionally if writing it failed
+     * @throws IOException if the data cannot be written
+     */
+    public CompletableFuture<Void> write(UUID id, byte[] data) throws IOException;
+
+    /**
+     * Removes the player's stored data, if there is any.
+     * @param id the player's unique id
+     * @throws IOException if the data cannot be removed
+     */
+    public void delete(UUID id) throws IOException;
+
+    /**
+     * Gets the unique ids of every player with stored data.
+     * @return the stored players' unique ids
+     * @throws IOException if the store cannot be listed
+     */
+    public Set<UUID> getStoredIds() throws IOException;
+
+    /**
+     * Gives the unique id of every player with stored data to the action, one at a time, without collecting them all
+     * first.
+     * @param action the action to run for each stored player
+     * @throws IOException if the store cannot be listed
+     */
+    public void forEachStoredId(Consumer<UUID> action) throws IOException;
+
+    /**
+     * Makes every write so far durable. Called after each batch of writes.
+     * @throws IOException if the data cannot be flushed
+     */
+    public void flush() throws IOException;
+
+    /**
+     * Flushes and releases the store. It must not be used afterwards.
+     * @throws IOException if the store cannot be closed cleanly
+     */
+    public void close() throws IOException;
+}
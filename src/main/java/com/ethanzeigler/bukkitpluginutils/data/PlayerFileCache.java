@@ -0,0 +1,726 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.BPUOptions;
+import com.ethanzeigler.bukkitpluginutils.BukkitUtilPlugin;
+import com.ethanzeigler.bukkitpluginutils.config.SaveStatistics;
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * A write-behind cache for player files. A player's file is loaded from disk once and kept in memory while they are
+ * online. Saving a file only queues it; queued files are written to disk in batches by a background task. Once a
+ * player logs out, their file is evicted after it has been idle for too long or when too many offline players are
+ * cached, least recently used first.
+ *
+ * <p>Player files are {@link TrackedConfiguration}s. Saving a file encodes it right away, on the saving thread and
+ * while the player's lock is held, and queues the bytes; the background task only writes queued bytes and never
+ * touches a file that plugins may be changing. Saving a file with no changes does no I/O, and when the store is a
+ * {@link DeltaPlayerDataStore}, only the changed paths are encoded and written.</p>
+ *
+ * <p>Each player maps to one of a fixed set of {@link StripedPlayerLocks locks}, which also
+ * {@link TrackedConfiguration#setGuard guards} their cached file: every read of the file holds the lock for reading
+ * and every change holds it for writing, whichever thread makes it and however the file was obtained. Saves hold the
+ * lock for writing, and {@link #read}, {@link #modify} and {@link #update} hold it across several calls so plugins can
+ * read and change a file from any thread without losing updates. Every save gives the file a new version, which
+ * optimistic {@link PlayerFileSnapshot snapshots} are checked against.</p>
+ */
+public class PlayerFileCache implements Listener {
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 3;
+    private static final long SHUTDOWN_WRITE_TIMEOUT = 10000;
+
+    private final BukkitUtilPlugin plugin;
+    private final PlayerDataStore store;
+    private final PlayerDataCodec codec;
+    private final long flushInterval;
+    private final long idleMillis;
+    private final int maxOfflineEntries;
+    private final int maxDeltas;
+    private final SaveStatistics statistics;
+    private final StripedPlayerLocks locks;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<UUID, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedFiles = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong versions = new AtomicLong();
+    private final Object flushLock = new Object();
+    private final Object writesLock = new Object();
+    private int writesInFlight;
+    private volatile boolean isShuttingDown;
+    private volatile BiConsumer<UUID, FileConfiguration> saveListener;
+    private BukkitTask flushTask;
+
+    /**
+     * A new player file cache. The cache does nothing in the background until {@link #start()} is called.
+     * @param plugin the plugin that owns the player files
+     * @param store the store the player files are kept in
+     * @param options the options to read the codec, flush interval, eviction and lock settings from
+     * @param statistics the statistics to record saves in
+     */
+    public PlayerFileCache(BukkitUtilPlugin plugin, PlayerDataStore store, BPUOptions options,
+                           SaveStatistics statistics) {
+        this.plugin = plugin;
+        this.store = store;
+        this.codec = options.getPlayerDataCodec();
+        this.flushInterval = options.getTicksBetweenPlayerFileFlushes();
+        this.idleMillis = options.getTicksBeforePlayerFileEviction() * 50;
+        this.maxOfflineEntries = options.getMaxCachedOfflinePlayerFiles();
+        this.maxDeltas = options.getMaxPlayerFileDeltas();
+        this.statistics = statistics;
+        this.locks = new StripedPlayerLocks(options.getPlayerLockStripes());
+    }
+
+    /**
+     * Starts tracking online players and schedules the background flush. Must be called from the main thread.
+     */
+    public void start() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            onlinePlayers.add(player.getUniqueId());
+        }
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        flushTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(
+                plugin, this::flushAndEvict, flushInterval, flushInterval);
+    }
+
+    /**
+     * Stops the background flush, writes every dirty file to disk and closes the store. Waits for writes the store
+     * finishes in the background, and gives any that fail one more try; files that still could not be written are
+     * logged as lost.
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        isShuttingDown = true;
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WRITE_TIMEOUT;
+        flush();
+        awaitWrites(deadline);
+        // failed writes were queued again
+        flush();
+        if (!awaitWrites(deadline)) {
+            plugin.getLogger().severe("Timed out waiting for player files to be written; recent saves may be lost");
+        }
+
+        for (Map.Entry<UUID, Entry> cached : entries.entrySet()) {
+            if (cached.getValue().dirty) {
+                plugin.getLogger().severe("Could not save player file, its latest changes are lost: "
+                        + cached.getKey());
+            }
+        }
+        entries.clear();
+        try {
+            store.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not close the player data store", e);
+        }
+    }
+
+    /**
+     * Gets the player's file, loading it from the store if it is not cached. The returned file is shared with the cache, so
+     * changes to it are kept in memory until the player's file is evicted. Call {@link #put(UUID, FileConfiguration)}
+     * to have the changes written to disk. Each call on the file holds the player's lock, but a value read and then
+     * changed in separate calls may have been changed by another thread in between; use {@link #modify} for that.
+     * @param id the player's unique id
+     * @return the player's file. If the player has no file yet, it will be empty.
+     */
+    public FileConfiguration get(UUID id) {
+        return getEntry(id).file;
+    }
+
+    private Entry getEntry(UUID id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            entry = loadEntry(id);
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return entry;
+    }
+
+    /**
+     * Loads the player's file without holding any lock of the entry map, so other players' lookups and saves do not
+     * wait for the disk. Concurrent misses for the same player wait for one load. The player's lock is not taken
+     * either, since callers may already hold it for reading.
+     */
+    private Entry loadEntry(UUID id) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> current = loading.putIfAbsent(id, created);
+        if (current != null) {
+            try {
+                return current.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                // a save made while loading replaces the file that was read
+                Entry loaded = load(id);
+                entry = entries.putIfAbsent(id, loaded);
+                if (entry == null) {
+                    entry = loaded;
+                }
+            }
+            created.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(id, created);
+        }
+    }
+
+    /**
+     * Gets the player's file only if it is already in memory.
+     * @param id the player's unique id
+     * @return the cached file, or null if the player's file would have to be loaded from disk
+     */
+    public FileConfiguration getIfCached(UUID id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        hits.incrementAndGet();
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.file;
+    }
+
+    /**
+     * Stores the player's file and queues it to be written to disk on the next flush. The file is encoded before this
+     * returns, so later changes to it are not part of this save. If it is the cached file and nothing in it has
+     * changed, nothing is written. A file that is not a {@link TrackedConfiguration} cannot be guarded by the
+     * player's lock, so a copy of it is cached instead and later changes to it are not seen.
+     * @param id the player's unique id
+     * @param file the player's file
+     */
+    public void put(UUID id, FileConfiguration file) {
+        Lock lock = locks.lockWrite(id);
+        try {
+            TrackedConfiguration tracked = file instanceof TrackedConfiguration
+                    ? (TrackedConfiguration) file : codec.decode(codec.encode(file));
+            Entry entry = entries.compute(id, (key, current) -> putEntry(id, current, tracked));
+            if (!queueWrite(entry)) {
+                return;
+            }
+            entry.version = versions.incrementAndGet();
+            BiConsumer<UUID, FileConfiguration> listener = saveListener;
+            if (listener != null) {
+                listener.accept(id, tracked);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(new IOException("Could not save player file: " + id, e));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry putEntry(UUID id, Entry entry, TrackedConfiguration file) {
+        if (entry == null) {
+            entry = new Entry(guard(id, file), true, 0, versions.incrementAndGet());
+        } else if (entry.file != file) {
+            // the store's copy has nothing to do with this file's tracked changes
+            entry.file = guard(id, file);
+            entry.requiresFullWrite = true;
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return entry;
+    }
+
+    private TrackedConfiguration guard(UUID id, TrackedConfiguration file) {
+        file.setGuard(locks.getLock(id));
+        return file;
+    }
+
+    /**
+     * Encodes the entry's file and queues the bytes, as a delta if the store supports it and the file's changes are
+     * known. Must be called while holding the player's write lock.
+     * @return whether anything was queued
+     */
+    private boolean queueWrite(Entry entry) throws IOException {
+        TrackedConfiguration tracked = entry.file;
+        TrackedConfiguration.Changes changes = tracked.getChanges();
+        if (!entry.requiresFullWrite) {
+            if (changes.isEmpty()) {
+                statistics.recordAvoidedSave(entry.storedSize);
+                return false;
+            }
+            if (store instanceof DeltaPlayerDataStore && entry.deltas < maxDeltas) {
+                byte[] delta = PlayerDataDelta.encode(codec, changes);
+                entry.queue(delta, true);
+                tracked.markClean(changes);
+                entry.deltas++;
+                statistics.recordDeltaSave(delta.length, entry.storedSize);
+                return true;
+            }
+        }
+
+        queueFull(entry, codec.encode(tracked));
+        tracked.markClean(changes);
+        return true;
+    }
+
+    private void queueFull(Entry entry, byte[] data) {
+        entry.queue(data, false);
+        entry.requiresFullWrite = false;
+        entry.storedSize = data.length;
+        entry.deltas = 0;
+        statistics.recordFullSave(data.length);
+    }
+
+    /**
+     * Reads the player's file while holding their lock for reading, so no transaction changes it meanwhile.
+     * @param id the player's unique id
+     * @param reader reads the file. It must not keep the file, and changing it throws an
+     *               {@link IllegalStateException}.
+     * @param <T> the type of value read
+     * @return the value read
+     */
+    public <T> T read(UUID id, Function<FileConfiguration, T> reader) {
+        Lock lock = locks.lockRead(id);
+        try {
+            return reader.apply(get(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the player's file while holding their lock for writing, then saves it. Other threads wait for the lock,
+     * so the modifier should be quick.
+     * @param id the player's unique id
+     * @param modifier changes the file. It must not keep the file.
+     * @param <T> the type of value returned by the modifier
+     * @return the modifier's result
+     */
+    public <T> T modify(UUID id, Function<FileConfiguration, T> modifier) {
+        Lock lock = locks.lockWrite(id);
+        try {
+            FileConfiguration file = get(id);
+            T result = modifier.apply(file);
+            put(id, file);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies the player's file so it can be changed without holding any lock.
+     * @param id the player's unique id
+     * @return the copy and the version it was taken at
+     */
+    public PlayerFileSnapshot snapshot(UUID id) {
+        Lock lock = locks.lockRead(id);
+        try {
+            Entry entry = getEntry(id);
+            return new PlayerFileSnapshot(id, codec.decode(codec.encode(entry.file)), entry.version);
+        } catch (IOException e) {
+            throw new RuntimeException(new IOException("Could not copy player file: " + id, e));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saves the changes made to a snapshot if the player's file has not been saved since the snapshot was taken. The
+     * changes are copied into the cached file, so files handed out earlier stay current.
+     * @param snapshot the changed snapshot
+     * @return whether the changes were saved. If not, take a new snapshot and try again.
+     */
+    public boolean commit(PlayerFileSnapshot snapshot) {
+        UUID id = snapshot.getPlayerId();
+        Lock lock = locks.lockWrite(id);
+        try {
+            Entry entry = getEntry(id);
+            if (entry.version != snapshot.getVersion()) {
+                locks.recordConflict();
+                return false;
+            }
+
+            TrackedConfiguration file = entry.file;
+            for (Map.Entry<String, Object> change : snapshot.getFile().getChanges().getValues().entrySet()) {
+                PlayerDataDelta.copyValue(file, change.getKey(), change.getValue());
+            }
+            put(id, file);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the player's file without holding their lock while the updater runs. The updater is given a copy, which
+     * is saved if nobody else saved the player's file meanwhile; otherwise it is run again on a fresh copy. After a
+     * few conflicts it runs under the player's lock instead, so it always succeeds.
+     * @param id the player's unique id
+     * @param updater changes the file. It may run more than once and must not keep the file.
+     */
+    public void update(UUID id, Consumer<FileConfiguration> updater) {
+        for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+            PlayerFileSnapshot snapshot = snapshot(id);
+            updater.accept(snapshot.getFile());
+            if (commit(snapshot)) {
+                return;
+            }
+        }
+
+        modify(id, file -> {
+            updater.accept(file);
+            return null;
+        });
+    }
+
+    /**
+     * Gets the player's current version, which changes every time their file is saved.
+     * @param id the player's unique id
+     * @return the player's version
+     */
+    public long getVersion(UUID id) {
+        return getEntry(id).version;
+    }
+
+    /**
+     * Sets the listener told about every saved player file, while the player's lock is held.
+     * @param saveListener the listener, or null
+     */
+    public void setSaveListener(BiConsumer<UUID, FileConfiguration> saveListener) {
+        this.saveListener = saveListener;
+    }
+
+    /**
+     * Writes the bytes queued by every save to the store, then flushes the store. Only bytes are written, so this may
+     * run on any thread.
+     */
+    public void flush() {
+        flushes.incrementAndGet();
+        synchronized (flushLock) {
+            for (Map.Entry<UUID, Entry> cached : entries.entrySet()) {
+                Entry entry = cached.getValue();
+                if (entry.dirty && write(cached.getKey(), entry)) {
+                    flushedFiles.incrementAndGet();
+                }
+            }
+
+            try {
+                store.flush();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not flush the player data store", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the entry's queued bytes to the store, oldest first. Writes that fail, including ones the store finishes
+     * in the background, are queued again in front of any made meanwhile, so the entry stays dirty and is not evicted.
+     * @return whether everything queued was written
+     */
+    private boolean write(UUID id, Entry entry) {
+        List<PendingWrite> writes = entry.takeQueued();
+        for (int i = 0; i < writes.size(); i++) {
+            PendingWrite write = writes.get(i);
+            try {
+                if (write.isDelta) {
+                    ((DeltaPlayerDataStore) store).writeDelta(id, write.data);
+                } else {
+                    entry.writing.incrementAndGet();
+                    startWrite();
+                    store.write(id, write.data).whenComplete((result, error) -> {
+                        if (error != null) {
+                            entry.requeue(Collections.singletonList(write));
+                            if (!isShuttingDown) {
+                                plugin.getLogger().warning("Could not save player file, retrying on the next flush: "
+                                        + id);
+                            }
+                        }
+                        entry.writing.decrementAndGet();
+                        finishWrite();
+                    });
+                }
+            } catch (Exception e) {
+                entry.requeue(writes.subList(i, writes.size()));
+                plugin.getLogger().log(Level.SEVERE, "Could not save player file: " + id, e);
+                return false;
+            }
+        }
+        return !writes.isEmpty();
+    }
+
+    private void startWrite() {
+        synchronized (writesLock) {
+            writesInFlight++;
+        }
+    }
+
+    private void finishWrite() {
+        synchronized (writesLock) {
+            writesInFlight--;
+            writesLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits for every write the store is finishing in the background.
+     * @return whether they all finished before the deadline
+     */
+    private boolean awaitWrites(long deadline) {
+        synchronized (writesLock) {
+            long remaining;
+            while (writesInFlight > 0 && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    writesLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return writesInFlight == 0;
+        }
+    }
+
+    /**
+     * Writes dirty files to disk, then evicts the files of offline players that are idle or over the cache limit.
+     */
+    private void flushAndEvict() {
+        flush();
+
+        // evicting while a flush is writing could let the file be reloaded from the store before it is written
+        synchronized (flushLock) {
+            long now = System.currentTimeMillis();
+            List<Map.Entry<UUID, Entry>> offline = new ArrayList<>();
+            for (Map.Entry<UUID, Entry> cached : entries.entrySet()) {
+                if (onlinePlayers.contains(cached.getKey())) {
+                    continue;
+                }
+                if (now - cached.getValue().lastAccess >= idleMillis) {
+                    evict(cached.getKey());
+                } else {
+                    offline.add(cached);
+                }
+            }
+
+            if (offline.size() > maxOfflineEntries) {
+                offline.sort((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess));
+                for (int i = 0; i < offline.size() - maxOfflineEntries; i++) {
+                    evict(offline.get(i).getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the player's file from the cache unless it has unwritten saves, the player came back online or their file
+     * is being loaded, in which case the load could have read the store before the entry's last write. The player's
+     * lock is held so a save cannot queue bytes on an entry that is being removed.
+     * @param id the player's unique id
+     */
+    private void evict(UUID id) {
+        Lock lock = locks.lockWrite(id);
+        try {
+            entries.computeIfPresent(id, (key, entry) -> {
+                if (entry.dirty || entry.writing.get() > 0 || onlinePlayers.contains(key) || loading.containsKey(key)) {
+                    return entry;
+                }
+                evictions.incrementAndGet();
+                return null;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry load(UUID id) {
+        try {
+            byte[] data = store.read(id);
+            if (data == null) {
+                return new Entry(guard(id, new TrackedConfiguration()), true, 0, versions.incrementAndGet());
+            }
+
+            int deltas = store instanceof DeltaPlayerDataStore ? ((DeltaPlayerDataStore) store).getDeltaCount(id) : 0;
+            Entry entry = new Entry(guard(id, PlayerDataDelta.decode(store, codec, id, data)), false, deltas,
+                    versions.incrementAndGet());
+            entry.storedSize = data.length;
+            return entry;
+        } catch (IOException e) {
+            throw new RuntimeException(new IOException("Could not load player file: " + id, e));
+        }
+    }
+
+    /**
+     * Gets the store the player files are kept in.
+     * @return the player data store
+     */
+    public PlayerDataStore getStore() {
+        return store;
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent e) {
+        onlinePlayers.add(e.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        onlinePlayers.remove(e.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Gets the locks guarding player files, which also expose contention counters.
+     * @return the player locks
+     */
+    public StripedPlayerLocks getLocks() {
+        return locks;
+    }
+
+    /**
+     * Gets the number of lookups that were served from memory.
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that had to load the player's file from disk.
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of flushes that have run, including ones with nothing to write.
+     * @return the number of flushes
+     */
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    /**
+     * Gets the number of player files written to disk by flushes.
+     * @return the number of files written
+     */
+    public long getFlushedFiles() {
+        return flushedFiles.get();
+    }
+
+    /**
+     * Gets the number of player files evicted from memory.
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the number of player files currently held in memory.
+     * @return the number of cached files
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * A cached player file and its bookkeeping.
+     */
+    private static class Entry {
+        private volatile TrackedConfiguration file;
+        private volatile boolean dirty;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private volatile boolean requiresFullWrite;
+        private volatile long storedSize;
+        private volatile int deltas;
+        private volatile long version;
+        private final AtomicInteger writing = new AtomicInteger();
+        private List<PendingWrite> queued = new ArrayList<>();
+        private long lastSequence;
+        private long lastFullSequence;
+
+        private Entry(TrackedConfiguration file, boolean requiresFullWrite, int deltas, long version) {
+            this.file = file;
+            this.requiresFullWrite = requiresFullWrite;
+            this.deltas = deltas;
+            this.version = version;
+        }
+
+        /**
+         * Queues a write. A full write replaces everything queued before it.
+         */
+        private synchronized void queue(byte[] data, boolean isDelta) {
+            PendingWrite write = new PendingWrite(data, isDelta, ++lastSequence);
+            if (!isDelta) {
+                queued.clear();
+                lastFullSequence = write.sequence;
+            }
+            queued.add(write);
+            dirty = true;
+        }
+
+        private synchronized List<PendingWrite> takeQueued() {
+            List<PendingWrite> writes = queued;
+            queued = new ArrayList<>();
+            dirty = false;
+            return writes;
+        }
+
+        /**
+         * Puts writes that failed back in front of the queue, unless a full write queued after them replaces them.
+         */
+        private synchronized void requeue(List<PendingWrite> writes) {
+            if (lastFullSequence > writes.get(0).sequence) {
+                return;
+            }
+            queued.addAll(0, writes);
+            dirty = true;
+        }
+    }
+
+    /**
+     * The encoded bytes of a save, waiting to be written to the store.
+     */
+    private static class PendingWrite {
+        private final byte[] data;
+        private final boolean isDelta;
+        private final long sequence;
+
+        private PendingWrite(byte[] data, boolean isDelta, long sequence) {
+            this.data = data;
+            this.isDelta = isDelta;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+/**
+ * Loads a player's file into the {@link PlayerFileCache} while they log in. {@link AsyncPlayerPreLoginEvent} is called
+ * off the main thread, so the file is already in memory by the time the player joins.
+ */
+public class PlayerFilePreloader implements Listener {
+    private final PlayerFileCache cache;
+
+    /**
+     * A new preloader
+     * @param cache the cache to load player files into
+     */
+    public PlayerFilePreloader(PlayerFileCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Loads the player's file once every other plugin has allowed the login.
+     * @param e the login event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent e) {
+        if (e.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            cache.get(e.getUniqueId());
+        }
+    }
+}
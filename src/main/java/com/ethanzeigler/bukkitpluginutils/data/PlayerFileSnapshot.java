@@ -0,0 +1,46 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+
+import java.util.UUID;
+
+/**
+ * A private copy of a player's file and the version it was copied at. The copy can be changed freely on any thread,
+ * then saved with {@link PlayerFileCache#commit(PlayerFileSnapshot)}, which only succeeds if nobody saved the player's
+ * file in the meantime.
+ */
+public class PlayerFileSnapshot {
+    private final UUID playerId;
+    private final TrackedConfiguration file;
+    private final long version;
+
+    PlayerFileSnapshot(UUID playerId, TrackedConfiguration file, long version) {
+        this.playerId = playerId;
+        this.file = file;
+        this.version = version;
+    }
+
+    /**
+     * Gets the unique id of the player the file belongs to.
+     * @return the player's unique id
+     */
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Gets the copy of the player's file. Changes to it are saved when the snapshot is committed.
+     * @return the copied file
+     */
+    public TrackedConfiguration getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the version of the player's file the copy was taken at.
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+/**
+ * The ways player data can be stored on disk.
+ */
+public enum PlayerStorageType {
+    /**
+     * One file per player in the Player Files directory. Easy to edit by hand, but slow with many players.
+     */
+    DIRECTORY,
+    /**
+     * Every player in one indexed data file. See {@link IndexedPlayerDataStore}.
+     */
+    INDEXED
+}
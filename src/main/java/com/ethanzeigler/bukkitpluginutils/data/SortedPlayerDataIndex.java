@@ -0,0 +1,89 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Orders players by a number at a path, for range queries and leaderboards such as the top 100 players by kills.
+ * Values that are not numbers are not indexed.
+ */
+public class SortedPlayerDataIndex extends PlayerDataIndex {
+    private final TreeMap<Double, Set<UUID>> players = new TreeMap<>();
+
+    /**
+     * An index over the path
+     * @param path the path in the player file to index
+     */
+    public SortedPlayerDataIndex(String path) {
+        super(path);
+    }
+
+    /**
+     * Gets every player whose value is between min and max, both inclusive, from lowest to highest.
+     * @param min the lowest value
+     * @param max the highest value
+     * @return the players in the range
+     */
+    public synchronized List<UUID> getRange(double min, double max) {
+        return collect(players.subMap(min, true, max, true), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the players with the highest values, from highest to lowest.
+     * @param count the number of players to get
+     * @return up to count players, or none if count is not positive
+     */
+    public synchronized List<UUID> getTop(int count) {
+        return collect(players.descendingMap(), count);
+    }
+
+    /**
+     * Gets the players with the lowest values, from lowest to highest.
+     * @param count the number of players to get
+     * @return up to count players, or none if count is not positive
+     */
+    public synchronized List<UUID> getBottom(int count) {
+        return collect(players, count);
+    }
+
+    private static List<UUID> collect(NavigableMap<Double, Set<UUID>> range, int count) {
+        if (count <= 0) {
+            return new ArrayList<>(0);
+        }
+
+        List<UUID> ids = new ArrayList<>(Math.min(count, 256));
+        for (Map.Entry<Double, Set<UUID>> entry : range.entrySet()) {
+            for (UUID id : entry.getValue()) {
+                if (ids.size() == count) {
+                    return ids;
+                }
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    Object normalize(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    @Override
+    void add(UUID id, Object value) {
+        players.computeIfAbsent((Double) value, key -> new LinkedHashSet<>()).add(id);
+    }
+
+    @Override
+    void remove(UUID id, Object value) {
+        Set<UUID> ids = players.get(value);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            players.remove(value);
+        }
+    }
+}
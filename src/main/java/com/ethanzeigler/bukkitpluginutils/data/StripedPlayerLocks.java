@@ -0,0 +1,119 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A fixed number of read/write locks shared by every player. Each player always maps to the same lock, so work on
+ * one player is serialized while different players can usually be handled in parallel, and the number of locks does
+ * not grow with the number of players.
+ */
+public class StripedPlayerLocks {
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong contendedAcquisitions = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    /**
+     * A new set of locks
+     * @param stripes the number of locks, rounded up to a power of two
+     */
+    public StripedPlayerLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantReadWriteLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Acquires the player's lock for reading. Unlock the returned lock in a finally block.
+     * @param id the player's unique id
+     * @return the acquired lock
+     */
+    public Lock lockRead(UUID id) {
+        return acquire(getStripe(id).readLock());
+    }
+
+    /**
+     * Acquires the player's lock for writing. Unlock the returned lock in a finally block.
+     * @param id the player's unique id
+     * @return the acquired lock
+     */
+    public Lock lockWrite(UUID id) {
+        return acquire(getStripe(id).writeLock());
+    }
+
+    private Lock acquire(Lock lock) {
+        acquisitions.incrementAndGet();
+        if (!lock.tryLock()) {
+            contendedAcquisitions.incrementAndGet();
+            long start = System.nanoTime();
+            lock.lock();
+            waitNanos.addAndGet(System.nanoTime() - start);
+        }
+        return lock;
+    }
+
+    /**
+     * Gets the player's lock without acquiring it or counting it, to guard their file with.
+     */
+    ReadWriteLock getLock(UUID id) {
+        return getStripe(id);
+    }
+
+    private ReentrantReadWriteLock getStripe(UUID id) {
+        int hash = id.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    void recordConflict() {
+        conflicts.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of locks players are spread over.
+     * @return the number of stripes
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Gets the number of times a lock has been acquired.
+     * @return the number of acquisitions
+     */
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    /**
+     * Gets the number of acquisitions that had to wait for another thread to release the lock.
+     * @return the number of contended acquisitions
+     */
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.get();
+    }
+
+    /**
+     * Gets the total time threads have spent waiting for locks.
+     * @return the time spent waiting in nanoseconds
+     */
+    public long getWaitNanos() {
+        return waitNanos.get();
+    }
+
+    /**
+     * Gets the number of optimistic saves rejected because the player's file changed after their snapshot was taken.
+     * @return the number of conflicts
+     */
+    public long getConflicts() {
+        return conflicts.get();
+    }
+}
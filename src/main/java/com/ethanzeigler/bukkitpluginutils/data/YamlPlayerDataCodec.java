@@ -0,0 +1,47 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Stores player files as YAML text, exactly as {@link YamlConfiguration#save(java.io.File)} would. Slower than
+ * {@link BinaryPlayerDataCodec}, but the files can be read and edited by hand. Data written by the binary codec is
+ * still read, so switching back to YAML for debugging needs no migration.
+ */
+public class YamlPlayerDataCodec implements PlayerDataCodec {
+    @Override
+    public byte[] encode(ConfigurationSection section) {
+        FileConfiguration file;
+        if (section instanceof FileConfiguration) {
+            file = (FileConfiguration) section;
+        } else {
+            file = new YamlConfiguration();
+            for (Map.Entry<String, Object> entry : section.getValues(false).entrySet()) {
+                file.set(entry.getKey(), entry.getValue());
+            }
+        }
+        return file.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public TrackedConfiguration decode(byte[] data) throws IOException {
+        if (BinaryPlayerDataCodec.isBinary(data)) {
+            return new BinaryPlayerDataCodec().decode(data);
+        }
+
+        TrackedConfiguration file = new TrackedConfiguration();
+        try {
+            file.loadFromString(new String(data, StandardCharsets.UTF_8));
+        } catch (InvalidConfigurationException e) {
+            throw new IOException(e);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,219 @@
+package com.ethanzeigler.bukkitpluginutils.diagnostics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times the tasks a plugin schedules, recording how long each waited to start and how long it ran in
+ * {@link LatencyHistogram histograms} grouped by label, so the tasks hurting the server's tick rate can be found.
+ *
+ * <p>Tasks are only timed while metrics are enabled. While they are disabled, {@link #wrap(String, Runnable, long)}
+ * returns the task itself after reading one volatile field.</p>
+ */
+public class SchedulerMetrics {
+    private static final int REPORT_LINES = 10;
+    private static final String LAMBDA_MARKER = "$$Lambda";
+    private static final Map<Class<?>, String> derivedLabels = new ConcurrentHashMap<>();
+
+    private final Map<String, TaskStats> stats = new ConcurrentHashMap<>();
+    private volatile boolean isEnabled;
+
+    /**
+     * Wraps a task so that it is timed when it runs, if metrics are enabled.
+     * @param label the label to group the task under, or null to use the name of the task's class
+     * @param task the task
+     * @param delayNanos how long the task is meant to wait before running, which is not counted as waiting
+     * @return the timed task, or the task itself if metrics are disabled
+     */
+    public Runnable wrap(String label, Runnable task, long delayNanos) {
+        if (!isEnabled) {
+            return task;
+        }
+
+        TaskStats taskStats = getStats(label != null ? label : getLabel(task));
+        long submitted = System.nanoTime() + delayNanos;
+        return () -> {
+            long start = System.nanoTime();
+            taskStats.wait.record(start - submitted);
+            try {
+                task.run();
+            } finally {
+                taskStats.run.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Wraps a repeating task so that each run is timed while metrics are enabled. Waiting is not recorded for
+     * repeating tasks.
+     * @param label the label to group the task under
+     * @param task the task
+     * @return the timed task
+     */
+    public Runnable wrapRepeating(String label, Runnable task) {
+        return () -> {
+            if (!isEnabled) {
+                task.run();
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                getStats(label).run.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Sends the labels that have spent the most time running, with their wait and run percentiles.
+     * @param sender who to send the report to
+     */
+    public void sendReport(CommandSender sender) {
+        List<Map.Entry<String, TaskStats>> sorted = getSorted();
+        if (sorted.isEmpty()) {
+            sender.sendMessage(ChatColor.GRAY + (isEnabled ? "No tasks have been timed yet."
+                    : "Scheduler metrics are disabled."));
+            return;
+        }
+
+        sender.sendMessage(ChatColor.GOLD + "Tasks by time spent (wait p50/p99, run p50/p99/max in ms):");
+        for (Map.Entry<String, TaskStats> entry : sorted.subList(0, Math.min(REPORT_LINES, sorted.size()))) {
+            TaskStats taskStats = entry.getValue();
+            sender.sendMessage(String.format("%s%s %s%dx %.1fms: %.2f/%.2f, %.2f/%.2f/%.2f", ChatColor.YELLOW,
+                    entry.getKey(), ChatColor.WHITE, taskStats.run.getCount(), toMillis(taskStats.run.getTotalNanos()),
+                    toMillis(taskStats.wait.getPercentileNanos(50)), toMillis(taskStats.wait.getPercentileNanos(99)),
+                    toMillis(taskStats.run.getPercentileNanos(50)), toMillis(taskStats.run.getPercentileNanos(99)),
+                    toMillis(taskStats.run.getMaxNanos())));
+        }
+    }
+
+    /**
+     * Writes every label's histograms to a JSON file.
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void dump(File file) throws IOException {
+        JsonArray tasks = new JsonArray();
+        for (Map.Entry<String, TaskStats> entry : getSorted()) {
+            JsonObject task = new JsonObject();
+            task.addProperty("label", entry.getKey());
+            task.add("wait", toJson(entry.getValue().wait));
+            task.add("run", toJson(entry.getValue().run));
+            tasks.add(task);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("time", System.currentTimeMillis());
+        json.add("tasks", tasks);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Gets the histograms recorded for a label.
+     * @param label the label
+     * @return the label's wait histogram, or null if nothing has been recorded under it
+     */
+    public LatencyHistogram getWaitHistogram(String label) {
+        TaskStats taskStats = stats.get(label);
+        return taskStats == null ? null : taskStats.wait;
+    }
+
+    /**
+     * Gets the run time histogram recorded for a label.
+     * @param label the label
+     * @return the label's run histogram, or null if nothing has been recorded under it
+     */
+    public LatencyHistogram getRunHistogram(String label) {
+        TaskStats taskStats = stats.get(label);
+        return taskStats == null ? null : taskStats.run;
+    }
+
+    /**
+     * Gets whether tasks are being timed.
+     * @return whether metrics are enabled
+     */
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Sets whether tasks are timed. Tasks already scheduled are timed only if they were scheduled while enabled.
+     * @param enabled whether metrics are enabled
+     */
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    private TaskStats getStats(String label) {
+        return stats.computeIfAbsent(label, key -> new TaskStats());
+    }
+
+    /**
+     * Gets the label a task is given when it is scheduled without one: its class's simple name, with a lambda's
+     * generated suffix removed so it is named after the class that created it.
+     * @param task the task
+     * @return the task's label
+     */
+    public static String getLabel(Runnable task) {
+        return derivedLabels.computeIfAbsent(task.getClass(), type -> {
+            String name = type.getName();
+            int lambda = name.indexOf(LAMBDA_MARKER);
+            if (lambda != -1) {
+                name = name.substring(0, lambda);
+            }
+            return name.substring(name.lastIndexOf('.') + 1);
+        });
+    }
+
+    private List<Map.Entry<String, TaskStats>> getSorted() {
+        List<Map.Entry<String, TaskStats>> sorted = new ArrayList<>(stats.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().run.getTotalNanos(), a.getValue().run.getTotalNanos()));
+        return sorted;
+    }
+
+    private static JsonObject toJson(LatencyHistogram histogram) {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", histogram.getCount());
+        json.addProperty("totalNanos", histogram.getTotalNanos());
+        json.addProperty("meanNanos", histogram.getMeanNanos());
+        json.addProperty("p50Nanos", histogram.getPercentileNanos(50));
+        json.addProperty("p90Nanos", histogram.getPercentileNanos(90));
+        json.addProperty("p99Nanos", histogram.getPercentileNanos(99));
+        json.addProperty("p999Nanos", histogram.getPercentileNanos(99.9));
+        json.addProperty("maxNanos", histogram.getMaxNanos());
+        return json;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * The histograms of one label.
+     */
+    private static class TaskStats {
+        private final LatencyHistogram wait = new LatencyHistogram();
+        private final LatencyHistogram run = new LatencyHistogram();
+    }
+}
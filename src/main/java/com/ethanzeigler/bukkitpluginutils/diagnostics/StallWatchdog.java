@@ -0,0 +1,177 @@
+package com.ethanzeigler.bukkitpluginutils.diagnostics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Finds out which main thread task is to blame when a tick takes too long. Tasks wrapped by
+ * {@link #wrap(String, Runnable)} note when they start and finish; a background thread checks now and then, and once a
+ * task has run past the threshold it samples the main thread's stack until the task finishes.
+ *
+ * <p>Samples are merged into a report in the folded format read by flame graph tools: one line per distinct stack,
+ * starting with the task's label and listing frames from the outermost in, followed by the number of samples. The
+ * report is rewritten after each stall.</p>
+ *
+ * <p>While nothing is stalling, a wrapped task costs two volatile writes and the watchdog thread wakes a few times
+ * per threshold to read one field.</p>
+ */
+public class StallWatchdog {
+    private static final long SAMPLE_MILLIS = 5;
+    private static final int MAX_STACKS = 2000;
+    private static final int MAX_FRAMES = 128;
+
+    private final Logger logger;
+    private final File report;
+    private final long thresholdNanos;
+    private final Map<String, Long> stacks = new HashMap<>();
+
+    private volatile Thread mainThread;
+    private volatile boolean isRunning;
+    // written by the main thread before running a task; start is written last so the others are visible with it
+    private String label;
+    private volatile long start;
+
+    /**
+     * A new watchdog, which does nothing until it is started.
+     * @param logger the logger to warn about stalls on
+     * @param report the file to write the folded report to
+     * @param thresholdMillis how long a task may run before its stack is sampled
+     */
+    public StallWatchdog(Logger logger, File report, long thresholdMillis) {
+        this.logger = logger;
+        this.report = report;
+        this.thresholdNanos = thresholdMillis * 1000000;
+    }
+
+    /**
+     * Starts watching the main thread. Must be called from the main thread.
+     */
+    public void start() {
+        mainThread = Thread.currentThread();
+        isRunning = true;
+        Thread thread = new Thread(this::watch, "BukkitPluginUtils Stall Watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching.
+     */
+    public void stop() {
+        isRunning = false;
+    }
+
+    /**
+     * Wraps a task so that the watchdog can tell it is running.
+     * @param label the label to report the task's stalls under
+     * @param task a task that will run on the main thread
+     * @return the wrapped task, or the task itself if the watchdog is not running
+     */
+    public Runnable wrap(String label, Runnable task) {
+        if (!isRunning) {
+            return task;
+        }
+
+        return () -> {
+            String previousLabel = this.label;
+            long previousStart = start;
+            this.label = label;
+            start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                this.label = previousLabel;
+                start = previousStart;
+            }
+        };
+    }
+
+    private void watch() {
+        long idleSleep = Math.max(1, thresholdNanos / 4000000);
+        while (isRunning) {
+            try {
+                long taskStart = start;
+                if (taskStart != 0 && System.nanoTime() - taskStart > thresholdNanos) {
+                    sampleStall(taskStart);
+                } else {
+                    Thread.sleep(idleSleep);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Samples the main thread until the stalled task finishes, then adds the samples to the report.
+     */
+    private void sampleStall(long taskStart) throws InterruptedException {
+        String taskLabel = label;
+        Map<String, Long> samples = new HashMap<>();
+        int count = 0;
+        while (isRunning && start == taskStart) {
+            StackTraceElement[] trace = mainThread.getStackTrace();
+            // the task may have finished while the stack was taken, in which case the sample is of something else
+            if (start != taskStart) {
+                break;
+            }
+            samples.merge(fold(taskLabel, trace), 1L, Long::sum);
+            count++;
+            Thread.sleep(SAMPLE_MILLIS);
+        }
+
+        long millis = (System.nanoTime() - taskStart) / 1000000;
+        logger.warning(String.format("The main thread stalled for at least %dms in %s (%d samples)", millis,
+                taskLabel, count));
+        synchronized (stacks) {
+            for (Map.Entry<String, Long> sample : samples.entrySet()) {
+                if (stacks.size() < MAX_STACKS || stacks.containsKey(sample.getKey())) {
+                    stacks.merge(sample.getKey(), sample.getValue(), Long::sum);
+                }
+            }
+        }
+        writeReport();
+    }
+
+    private static String fold(String label, StackTraceElement[] trace) {
+        StringBuilder folded = new StringBuilder(label);
+        for (int i = Math.min(trace.length, MAX_FRAMES) - 1; i >= 0; i--) {
+            StackTraceElement frame = trace[i];
+            folded.append(';').append(frame.getClassName()).append('.').append(frame.getMethodName());
+        }
+        return folded.toString();
+    }
+
+    private void writeReport() {
+        List<String> lines = new ArrayList<>();
+        synchronized (stacks) {
+            for (Map.Entry<String, Long> stack : stacks.entrySet()) {
+                lines.add(stack.getKey() + " " + stack.getValue());
+            }
+        }
+
+        try {
+            report.getParentFile().mkdirs();
+            Files.write(report.toPath(), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warning("Could not write the stall report: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the samples taken so far, folded by stack.
+     * @return each folded stack and its number of samples
+     */
+    public Map<String, Long> getStacks() {
+        synchronized (stacks) {
+            return new HashMap<>(stacks);
+        }
+    }
+}
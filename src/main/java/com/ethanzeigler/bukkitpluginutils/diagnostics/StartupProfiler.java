@@ -0,0 +1,153 @@
+package com.ethanzeigler.bukkitpluginutils.diagnostics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Records how long each phase of starting every BPU plugin takes. Phases are timed until the server has finished
+ * loading, when the first plugin to notice prints a summary sorted by time and writes a JSON report so startup can be
+ * compared across releases. Phases that run after that are not recorded.
+ */
+public final class StartupProfiler {
+    private static final List<Phase> phases = Collections.synchronizedList(new ArrayList<>());
+    private static final AtomicBoolean isReported = new AtomicBoolean();
+
+    private StartupProfiler() {
+    }
+
+    /**
+     * Starts timing a phase. Close the returned phase when it ends, ideally with try-with-resources.
+     * @param plugin the name of the plugin starting up
+     * @param name the name of the phase
+     * @return the running phase
+     */
+    public static Phase begin(String plugin, String name) {
+        return new Phase(plugin, name);
+    }
+
+    /**
+     * Gets every phase recorded so far.
+     * @return the recorded phases, in the order they ended
+     */
+    public static List<Phase> getPhases() {
+        synchronized (phases) {
+            return new ArrayList<>(phases);
+        }
+    }
+
+    /**
+     * Stops recording, then logs the phases from slowest to fastest and writes them to the report file. Only the first
+     * call does anything.
+     * @param logger the logger to print the summary to
+     * @param report the file to write the JSON report to
+     */
+    public static void report(Logger logger, File report) {
+        if (!isReported.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<Phase> sorted = getPhases();
+        sorted.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+
+        long total = 0;
+        StringBuilder summary = new StringBuilder("BukkitPluginUtils startup phases:");
+        for (Phase phase : sorted) {
+            if (phase.isTopLevel) {
+                total += phase.nanos;
+            }
+            summary.append(String.format("%n  %10.3f ms  %s: %s", phase.nanos / 1e6, phase.plugin, phase.name));
+        }
+        summary.append(String.format("%n  %10.3f ms  total", total / 1e6));
+        logger.info(summary.toString());
+
+        try {
+            report.getParentFile().mkdirs();
+            Files.write(report.toPath(), toJson(sorted, total).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warning("Could not write the startup report: " + e.getMessage());
+        }
+    }
+
+    private static String toJson(List<Phase> sorted, long total) {
+        JsonArray array = new JsonArray();
+        for (Phase phase : sorted) {
+            JsonObject object = new JsonObject();
+            object.addProperty("plugin", phase.plugin);
+            object.addProperty("phase", phase.name);
+            object.addProperty("nanos", phase.nanos);
+            object.addProperty("topLevel", phase.isTopLevel);
+            array.add(object);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("time", System.currentTimeMillis());
+        json.addProperty("totalNanos", total);
+        json.add("phases", array);
+        return json.toString();
+    }
+
+    /**
+     * A timed phase of a plugin's startup. Phases whose name contains a {@code /} are part of another phase and are
+     * left out of the total.
+     */
+    public static class Phase implements AutoCloseable {
+        private final String plugin;
+        private final String name;
+        private final boolean isTopLevel;
+        private final long start = System.nanoTime();
+        private long nanos = -1;
+
+        private Phase(String plugin, String name) {
+            this.plugin = plugin;
+            this.name = name;
+            this.isTopLevel = name.indexOf('/') == -1;
+        }
+
+        /**
+         * Ends the phase and records it, unless startup has already been reported.
+         */
+        @Override
+        public void close() {
+            if (nanos == -1) {
+                nanos = System.nanoTime() - start;
+                if (!isReported.get()) {
+                    phases.add(this);
+                }
+            }
+        }
+
+        /**
+         * Gets the name of the plugin the phase belongs to.
+         * @return the plugin's name
+         */
+        public String getPlugin() {
+            return plugin;
+        }
+
+        /**
+         * Gets the name of the phase.
+         * @return the phase's name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets how long the phase took.
+         * @return the phase's duration in nanoseconds, or -1 if it has not ended
+         */
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.ethanzeigler.bukkitpluginutils.io;
+
+import org.bukkit.Bukkit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Writes files in the background, replacing each one atomically so a crash can never leave a file half written.
+ * Writes are collected for a short interval and committed together: every new file is written to a temporary file and
+ * forced to disk, then all of them are renamed over their targets at once. Writing the same file again before it is
+ * committed replaces the pending write, so only the latest contents are written.
+ *
+ * <p>All BPU saves go through the shared writer. Each plugin {@link #retainShared() retains} it while it is enabled
+ * and {@link #releaseShared(long) releases} it when it is disabled, which waits for its writes; the writer's thread is
+ * stopped once the last plugin releases it, so a reload does not leave it running. Saves made while a plugin holds no
+ * writer, such as before it is enabled, are written right away with {@link #writeNow(Path, byte[])}.</p>
+ */
+public class GroupCommitWriter {
+    private static final long DEFAULT_COMMIT_INTERVAL = 200;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static GroupCommitWriter shared;
+    private static int sharedUsers;
+
+    private final long commitInterval;
+    private final Object lock = new Object();
+    private Map<Path, PendingWrite> pending = new LinkedHashMap<>();
+    private Map<Path, PendingWrite> committing = Collections.emptyMap();
+    private long submittedGeneration;
+    private long committedGeneration;
+    private boolean isFlushRequested;
+    private boolean isClosed;
+    private final Thread thread;
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong filesCommitted = new AtomicLong();
+    private final AtomicLong writesCoalesced = new AtomicLong();
+
+    /**
+     * Gets the writer shared by every BPU plugin. Only a plugin that has {@link #retainShared() retained} it may use
+     * it, since it is closed once the last one releases it.
+     * @return the shared writer
+     * @throws IllegalStateException if no plugin holds the shared writer
+     */
+    public static synchronized GroupCommitWriter getShared() {
+        if (shared == null) {
+            throw new IllegalStateException("The shared file writer is not retained by any plugin");
+        }
+        return shared;
+    }
+
+    /**
+     * Gets the shared writer, starting it if needed, and counts the caller as one of its users, so it is not closed
+     * while they need it. Each call must be matched by a call to {@link #releaseShared(long)}.
+     * @return the shared writer
+     */
+    public static synchronized GroupCommitWriter retainShared() {
+        if (shared == null) {
+            shared = new GroupCommitWriter(DEFAULT_COMMIT_INTERVAL);
+        }
+        sharedUsers++;
+        return shared;
+    }
+
+    /**
+     * Replaces the file with the data on the calling thread, atomically like a commit, without any writer.
+     * @param path the file to write
+     * @param data the file's new contents
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeNow(Path path, byte[] data) throws IOException {
+        writeTemp(path, data);
+        Files.move(getTempPath(path), path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        if (path.getParent() != null) {
+            forceDirectory(path.getParent());
+        }
+    }
+
+    /**
+     * Waits for every write to the shared writer to be committed, then closes it if no other user has retained it.
+     * @param timeout the maximum number of milliseconds to wait
+     * @return whether everything was committed before the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public static boolean releaseShared(long timeout) throws InterruptedException {
+        GroupCommitWriter writer;
+        synchronized (GroupCommitWriter.class) {
+            writer = shared;
+            if (writer == null) {
+                return true;
+            }
+            if (sharedUsers > 0) {
+                sharedUsers--;
+            }
+            if (sharedUsers > 0) {
+                return writer.flushAll(timeout);
+            }
+            shared = null;
+        }
+        return writer.close(timeout);
+    }
+
+    /**
+     * A new writer with its own background thread.
+     * @param commitInterval the number of milliseconds writes are collected for before they are committed
+     */
+    public GroupCommitWriter(long commitInterval) {
+        this.commitInterval = commitInterval;
+
+        thread = new Thread(this::run, "BukkitPluginUtils File Writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues the file to be replaced with the data.
+     * @param path the file to write
+     * @param data the file's new contents
+     * @return a future completed once the file is on disk
+     */
+    public CompletableFuture<Void> write(Path path, byte[] data) {
+        return submit(path, data);
+    }
+
+    /**
+     * Queues the file to be deleted. Pending writes to the file are dropped.
+     * @param path the file to delete
+     * @return a future completed once the file is gone
+     */
+    public CompletableFuture<Void> delete(Path path) {
+        return submit(path, null);
+    }
+
+    /**
+     * Reads a file as it will be once every pending write is committed.
+     * @param path the file to read
+     * @return the file's contents, or null if it does not exist or is about to be deleted
+     * @throws IOException if the file cannot be read
+     */
+    public byte[] read(Path path) throws IOException {
+        synchronized (lock) {
+            PendingWrite write = pending.get(path);
+            if (write == null) {
+                write = committing.get(path);
+            }
+            if (write != null) {
+                return write.data;
+            }
+        }
+
+        try {
+            return Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets whether the file has a write or delete that has not been committed yet.
+     * @param path the file
+     * @return whether the file has pending changes
+     */
+    public boolean isPending(Path path) {
+        synchronized (lock) {
+            return pending.containsKey(path) || committing.containsKey(path);
+        }
+    }
+
+    /**
+     * Gets the files in a directory with changes that have not been committed yet.
+     * @param directory the directory
+     * @return each pending file, mapped to true if it is being written or false if it is being deleted
+     */
+    public Map<Path, Boolean> getPending(Path directory) {
+        Map<Path, Boolean> files = new HashMap<>();
+        synchronized (lock) {
+            // pending writes are newer, so they go last
+            addPending(committing, directory, files);
+            addPending(pending, directory, files);
+        }
+        return files;
+    }
+
+    private static void addPending(Map<Path, PendingWrite> writes, Path directory, Map<Path, Boolean> files) {
+        for (Map.Entry<Path, PendingWrite> entry : writes.entrySet()) {
+            if (directory.equals(entry.getKey().getParent())) {
+                files.put(entry.getKey(), entry.getValue().data != null);
+            }
+        }
+    }
+
+    /**
+     * Commits every write queued so far right away and waits for them to reach the disk.
+     * @param timeout the maximum number of milliseconds to wait
+     * @return whether everything was committed before the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean flushAll(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (lock) {
+            long target = submittedGeneration;
+            isFlushRequested = true;
+            lock.notifyAll();
+
+            long remaining;
+            while (committedGeneration < target && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                lock.wait(remaining);
+            }
+            return committedGeneration >= target;
+        }
+    }
+
+    /**
+     * Commits every write queued so far, then stops the writer's thread. Writes made after this throw an
+     * {@link IllegalStateException}.
+     * @param timeout the maximum number of milliseconds to wait
+     * @return whether everything was committed and the thread stopped before the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean close(long timeout) throws InterruptedException {
+        synchronized (lock) {
+            isClosed = true;
+            lock.notifyAll();
+        }
+        thread.join(Math.max(1, timeout));
+        return !thread.isAlive();
+    }
+
+    /**
+     * Gets whether the writer has been closed.
+     * @return whether the writer is closed
+     */
+    public boolean isClosed() {
+        synchronized (lock) {
+            return isClosed;
+        }
+    }
+
+    /**
+     * Gets the number of group commits made.
+     * @return the number of commits
+     */
+    public long getCommits() {
+        return commits.get();
+    }
+
+    /**
+     * Gets the number of files written or deleted by commits.
+     * @return the number of files committed
+     */
+    public long getFilesCommitted() {
+        return filesCommitted.get();
+    }
+
+    /**
+     * Gets the number of writes replaced by a later write to the same file before they were committed.
+     * @return the number of coalesced writes
+     */
+    public long getWritesCoalesced() {
+        return writesCoalesced.get();
+    }
+
+    private CompletableFuture<Void> submit(Path path, byte[] data) {
+        PendingWrite write = new PendingWrite(data);
+        synchronized (lock) {
+            if (isClosed) {
+                throw new IllegalStateException("The file writer is closed");
+            }
+            PendingWrite previous = pending.remove(path);
+            if (previous != null) {
+                writesCoalesced.incrementAndGet();
+                write.future.whenComplete((result, error) -> {
+                    if (error == null) {
+                        previous.future.complete(null);
+                    } else {
+                        previous.future.completeExceptionally(error);
+                    }
+                });
+            }
+
+            pending.put(path, write);
+            submittedGeneration++;
+            lock.notifyAll();
+        }
+        return write.future;
+    }
+
+    private void run() {
+        while (true) {
+            Map<Path, PendingWrite> batch;
+            long batchGeneration;
+            try {
+                synchronized (lock) {
+                    while (pending.isEmpty()) {
+                        if (isClosed) {
+                            return;
+                        }
+                        isFlushRequested = false;
+                        lock.wait();
+                    }
+
+                    // give other saves a chance to join this commit
+                    long deadline = System.currentTimeMillis() + commitInterval;
+                    long remaining;
+                    while (!isFlushRequested && !isClosed
+                            && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        lock.wait(remaining);
+                    }
+
+                    isFlushRequested = false;
+                    batch = pending;
+                    batchGeneration = submittedGeneration;
+                    pending = new LinkedHashMap<>();
+                    committing = batch;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            commit(batch);
+
+            synchronized (lock) {
+                committing = Collections.emptyMap();
+                committedGeneration = batchGeneration;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes every file in the batch to a temporary file and forces it to disk, then renames them all into place and
+     * forces their directories.
+     */
+    private void commit(Map<Path, PendingWrite> batch) {
+        commits.incrementAndGet();
+        Map<Path, IOException> failures = new HashMap<>();
+
+        for (Map.Entry<Path, PendingWrite> entry : batch.entrySet()) {
+            if (entry.getValue().data == null) {
+                continue;
+            }
+            try {
+                writeTemp(entry.getKey(), entry.getValue().data);
+            } catch (IOException e) {
+                failures.put(entry.getKey(), e);
+            }
+        }
+
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Map.Entry<Path, PendingWrite> entry : batch.entrySet()) {
+            Path path = entry.getKey();
+            if (failures.containsKey(path)) {
+                continue;
+            }
+            try {
+                if (entry.getValue().data == null) {
+                    Files.deleteIfExists(path);
+                } else {
+                    Files.move(getTempPath(path), path, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+                if (path.getParent() != null) {
+                    directories.add(path.getParent());
+                }
+            } catch (IOException e) {
+                failures.put(path, e);
+            }
+        }
+
+        for (Path directory : directories) {
+            forceDirectory(directory);
+        }
+
+        for (Map.Entry<Path, PendingWrite> entry : batch.entrySet()) {
+            IOException failure = failures.get(entry.getKey());
+            if (failure == null) {
+                filesCommitted.incrementAndGet();
+                entry.getValue().future.complete(null);
+            } else {
+                Bukkit.getLogger().log(Level.SEVERE, "Could not write " + entry.getKey(), failure);
+                entry.getValue().future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private static void writeTemp(Path path, byte[] data) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        try (FileChannel channel = FileChannel.open(getTempPath(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces a directory so renames into it survive a crash. Not every platform allows opening a directory, in which
+     * case the rename is left to the OS.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not supported on this platform
+        }
+    }
+
+    private static Path getTempPath(Path path) {
+        return path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+    }
+
+    /**
+     * The contents a file will be replaced with, or null if it will be deleted.
+     */
+    private static class PendingWrite {
+        private final byte[] data;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(byte[] data) {
+            this.data = data;
+        }
+    }
+}
@@ -2,17 +2,25 @@ package com.ethanzeigler.bukkitpluginutils.language;
 
 import org.bukkit.ChatColor;
 
-import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static sun.print.ServiceDialog.getMsg;
-
+/**
+ * Provides messages from a language's resource bundle. Every message has its color codes translated once when the
+ * bundle is loaded, and is then served from an immutable map, so messages can be read from any thread without
+ * locking. Messages are compiled into {@link MessageTemplate}s the first time they are formatted.
+ */
 public class I18N implements MessageProvider {
-    private ResourceBundle messages;
+    private final ClassLoader classLoader;
+    private volatile Map<String, String> messages;
+    private volatile Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+    private volatile Locale bundleLocale;
     private Language lang;
-    private MessageFormat formatter;
 
     /**
      * Loads the given language file using the given classloader.
@@ -22,10 +30,10 @@ public class I18N implements MessageProvider {
      * @throws MissingResourceException is the file cannot be found
      */
     public I18N(ClassLoader classLoader, Language lang) throws MissingResourceException {
+        this.classLoader = classLoader;
         this.lang = lang;
-        this.formatter = new MessageFormat("", lang.getLocale());
 
-        this.messages = ResourceBundle.getBundle(lang.getResourceBundleBase(), lang.getLocale(), classLoader);
+        load();
     }
 
     /**
@@ -34,10 +42,7 @@ public class I18N implements MessageProvider {
      * @throws MissingResourceException is the file cannot be found.
      */
     public I18N(Language lang) throws MissingResourceException {
-        this.lang = lang;
-        this.formatter = new MessageFormat("", lang.getLocale());
-
-        this.messages = ResourceBundle.getBundle(lang.getResourceBundleBase(), lang.getLocale());
+        this(I18N.class.getClassLoader(), lang);
     }
 
     /**
@@ -48,31 +53,78 @@ public class I18N implements MessageProvider {
      */
     @Override
     public String get(String key) {
-        return ChatColor.translateAlternateColorCodes('&', messages.getString(key));
+        String message = messages.get(key);
+        if (message == null) {
+            throw new MissingResourceException("Can't find resource for bundle " + lang.getResourceBundleBase()
+                    + ", key " + key, lang.getResourceBundleBase(), key);
+        }
+        return message;
+    }
+
+    /**
+     * Loads the language file again, such as after it was edited. Messages are switched over all at once, so a
+     * message read during the reload comes wholly from the old file or wholly from the new one.
+     * @throws MissingResourceException if the file can no longer be found
+     */
+    public void reload() throws MissingResourceException {
+        ResourceBundle.clearCache(classLoader);
+        load();
+        templates = new ConcurrentHashMap<>();
+    }
+
+    private void load() {
+        ResourceBundle bundle = ResourceBundle.getBundle(lang.getResourceBundleBase(), lang.getLocale(), classLoader);
+        messages = compile(bundle);
+        bundleLocale = bundle.getLocale();
+    }
+
+    /**
+     * Translates the color codes of every message in the bundle.
+     */
+    private static Map<String, String> compile(ResourceBundle bundle) {
+        Map<String, String> compiled = new HashMap<>();
+        for (String key : bundle.keySet()) {
+            compiled.put(key, ChatColor.translateAlternateColorCodes('&', bundle.getString(key)).intern());
+        }
+        return Collections.unmodifiableMap(compiled);
     }
 
     /**
-     * Gets and formats a message using the {@link com.sun.org.apache.xerces.internal.util.MessageFormatter}. For more
-     * information, look up Java's MessageFormatter class.
+     * Gets and formats a message using {@link java.text.MessageFormat}'s syntax. Each message's pattern is compiled
+     * once, so formatting is safe from any thread and does not parse the pattern again.
      * @param key the message key
      * @param replacements replacement args
-     * @see com.sun.org.apache.xerces.internal.util.MessageFormatter#formatMessage(Locale, String, Object[])
+     * @see java.text.MessageFormat
      * @return the formatted message
      */
     public String getAndFormat(String key, Object... replacements) {
-        return format(getMsg(key), replacements);
+        return getTemplate(key).format(replacements);
     }
 
     /**
-     * Formats a message using the {@link com.sun.org.apache.xerces.internal.util.MessageFormatter}. For more
-     * information, look up Java's MessageFormatter class.
-     * @param replacements replacement args
-     * @see com.sun.org.apache.xerces.internal.util.MessageFormatter#formatMessage(Locale, String, Object[])
-     * @return the formatted message
+     * Gets the compiled template of a message.
+     * @param key the message key
+     * @return the message's template
+     * @throws MissingResourceException if there is no message with the key
+     */
+    public MessageTemplate getTemplate(String key) {
+        Map<String, MessageTemplate> current = templates;
+        MessageTemplate template = current.get(key);
+        if (template == null) {
+            template = MessageTemplate.compile(get(key), lang.getLocale());
+            current.put(key, template);
+        }
+        return template;
+    }
+
+    /**
+     * Gets the locale of the file the messages were loaded from. This differs from the language's locale when the
+     * language has no file of its own and a more general one was loaded, such as {@code messages_de} for
+     * {@code de_AT}.
+     * @return the loaded file's locale
      */
-    private String format(String input, Object... replacements) {
-        formatter.applyPattern(input);
-        return formatter.format(replacements);
+    public Locale getBundleLocale() {
+        return bundleLocale;
     }
 
     /**
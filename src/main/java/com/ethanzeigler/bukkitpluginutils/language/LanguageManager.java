@@ -1,16 +1,31 @@
 package com.ethanzeigler.bukkitpluginutils.language;
-import javafx.util.Pair;
+import com.ethanzeigler.bukkitpluginutils.BukkitUtilPlugin;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.Permissible;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A language manager for Bukkit plugins
  */
 public class LanguageManager {
+    private static final int MAX_PARSED_MESSAGES = 4096;
+    private static final int BROADCAST_RECIPIENTS_PER_TICK = 250;
+
     private JavaPlugin plugin;
     private String pluginPrefix;
     private MessageProvider messageProvider;
+    private LocalizedMessageProviders localizedProviders;
+    private final Map<String, PlaceholderMessage> placeholderMessages = new ConcurrentHashMap<>();
 
     /**
      * A new LanguageManager
@@ -24,6 +39,18 @@ public class LanguageManager {
         this.messageProvider = provider;
     }
 
+    /**
+     * A new LanguageManager that sends each player messages in their client's locale
+     * @param plugin the JavaPlugin. This is used for sending synchronous messages to be thread safe.
+     * @param providers the message providers of each locale. Senders that are not players, and players whose locale
+     *                  has no messages, get the default locale's messages.
+     * @param pluginPrefix the prefix the plugin is using for beautified messages
+     */
+    public LanguageManager(JavaPlugin plugin, LocalizedMessageProviders providers, String pluginPrefix) {
+        this(plugin, providers.getDefaultProvider(), pluginPrefix);
+        this.localizedProviders = providers;
+    }
+
 
     /**
      * Gets the message template if it exists from the current language file.
@@ -32,15 +59,30 @@ public class LanguageManager {
      * @return the message of that template
      */
     public String getMessage(String msg) {
+        return getMessage(messageProvider, msg);
+    }
+
+    /**
+     * Gets the message template if it exists, in the sender's locale if this manager has providers for each locale.
+     *
+     * @param sender the sender the message is for
+     * @param msg the message template to get
+     * @return the message of that template
+     */
+    public String getMessage(CommandSender sender, String msg) {
+        return getMessage(getMessageProvider(sender), msg);
+    }
+
+    private static String getMessage(MessageProvider provider, String msg) {
         try {
-            return (String) messageProvider.get(msg);
+            return (String) provider.get(msg);
         } catch (Exception e) {
             return "Something is wrong with this plugin. Tell an administrator. ERROR: Key pair \"" + msg + "\" could not be found.";
         }
     }
 
     public void getAndSendMessage(CommandSender player, String key) {
-        sendMessage(player, getMessage(key));
+        sendMessage(player, getMessage(player, key));
     }
 
     /**
@@ -67,7 +109,12 @@ public class LanguageManager {
      * @param message    the message to send
      */
     public void sendSyncBeautifiedMessage(CommandSender player, ChatColor startColor, String message) {
-        plugin.getServer().getScheduler().runTask(plugin, () -> sendMessage(player, startColor, message));
+        Runnable send = () -> sendMessage(player, startColor, message);
+        if (plugin instanceof BukkitUtilPlugin) {
+            ((BukkitUtilPlugin) plugin).runSynchronously(send);
+        } else {
+            plugin.getServer().getScheduler().runTask(plugin, send);
+        }
     }
 
     public void sendSyncBeautifiedMessage(CommandSender player, String message) {
@@ -83,28 +130,228 @@ public class LanguageManager {
     }
 
     public static String getBeautifiedMessage(ChatColor startColor, String msg, String pluginPrefix) {
-        return String.format("%s[%s] %s", startColor == null ? ChatColor.RESET : startColor, pluginPrefix, msg);
+        return (startColor == null ? ChatColor.RESET : startColor) + "[" + pluginPrefix + "] " + msg;
     }
 
     /**
-     * Returns the message with the given key pairs replaced, if found.
+     * Sends a beautified message from the language file to every sender, in each sender's locale. The message is
+     * looked up and rendered once for each locale rather than once for each sender. Audiences larger than a few
+     * hundred are sent to over several ticks, so this must be called from the main thread.
      *
-     * <p>The key pairs replace the given String identified by {@link String#replace(CharSequence, CharSequence)}
-     * with the value's {@link Object#toString()} output.</p>
+     * @param recipients the senders to send the message to
+     * @param startColor color to start the message with. If null, will be {@link ChatColor#RESET}.
+     * @param key the message key
+     * @param replacements the values of the message's placeholders, or null if it has none
+     * @return the number of senders the message is sent to
+     */
+    public int broadcast(Collection<? extends CommandSender> recipients, ChatColor startColor, String key,
+                         Placeholders replacements) {
+        Map<MessageProvider, String> rendered = new IdentityHashMap<>();
+        CommandSender[] senders = recipients.toArray(new CommandSender[0]);
+        String[] messages = new String[senders.length];
+        for (int i = 0; i < senders.length; i++) {
+            messages[i] = rendered.computeIfAbsent(getMessageProvider(senders[i]), provider -> {
+                String msg = getMessage(provider, key);
+                if (replacements != null) {
+                    msg = getPlaceholderMessage(msg).fill(replacements);
+                }
+                return getBeautifiedMessage(startColor, msg);
+            });
+        }
+
+        deliver(senders, messages, 0);
+        return senders.length;
+    }
+
+    /**
+     * Sends a beautified message from the language file to every sender with the permission, in each sender's locale,
+     * like {@link org.bukkit.Bukkit#broadcast(String, String)}. Only senders subscribed to the permission are checked,
+     * rather than every player online.
+     *
+     * @param permission the permission recipients must have
+     * @param startColor color to start the message with. If null, will be {@link ChatColor#RESET}.
+     * @param key the message key
+     * @param replacements the values of the message's placeholders, or null if it has none
+     * @return the number of senders the message is sent to
+     * @see LanguageManager#broadcast(Collection, ChatColor, String, Placeholders)
+     */
+    public int broadcast(String permission, ChatColor startColor, String key, Placeholders replacements) {
+        return broadcast(getSubscribers(permission), startColor, key, replacements);
+    }
+
+    /**
+     * Sends a beautified message to every sender. The message is beautified once for all of them. Audiences larger
+     * than a few hundred are sent to over several ticks, so this must be called from the main thread.
+     *
+     * @param recipients the senders to send the message to
+     * @param startColor color to start the message with. If null, will be {@link ChatColor#RESET}.
+     * @param message the message to send
+     * @return the number of senders the message is sent to
+     */
+    public int broadcastMessage(Collection<? extends CommandSender> recipients, ChatColor startColor,
+                                String message) {
+        CommandSender[] senders = recipients.toArray(new CommandSender[0]);
+        String[] messages = new String[senders.length];
+        Arrays.fill(messages, getBeautifiedMessage(startColor, message));
+        deliver(senders, messages, 0);
+        return senders.length;
+    }
+
+    /**
+     * Sends a beautified message to every sender with the permission, like
+     * {@link org.bukkit.Bukkit#broadcast(String, String)}.
+     *
+     * @param permission the permission recipients must have
+     * @param startColor color to start the message with. If null, will be {@link ChatColor#RESET}.
+     * @param message the message to send
+     * @return the number of senders the message is sent to
+     */
+    public int broadcastMessage(String permission, ChatColor startColor, String message) {
+        return broadcastMessage(getSubscribers(permission), startColor, message);
+    }
+
+    private List<CommandSender> getSubscribers(String permission) {
+        List<CommandSender> subscribers = new ArrayList<>();
+        for (Permissible permissible : plugin.getServer().getPluginManager().getPermissionSubscriptions(permission)) {
+            if (permissible instanceof CommandSender && permissible.hasPermission(permission)) {
+                subscribers.add((CommandSender) permissible);
+            }
+        }
+        return subscribers;
+    }
+
+    /**
+     * Sends one tick's worth of messages, then schedules the rest for the next tick.
+     */
+    private void deliver(CommandSender[] senders, String[] messages, int start) {
+        int end = Math.min(senders.length, start + BROADCAST_RECIPIENTS_PER_TICK);
+        for (int i = start; i < end; i++) {
+            // players may have left while a large broadcast was being sent
+            if (!(senders[i] instanceof Player) || ((Player) senders[i]).isOnline()) {
+                senders[i].sendMessage(messages[i]);
+            }
+        }
+
+        if (end < senders.length) {
+            Runnable rest = () -> deliver(senders, messages, end);
+            if (plugin instanceof BukkitUtilPlugin) {
+                ((BukkitUtilPlugin) plugin).runSynchronously("LanguageManager broadcast", rest);
+            } else {
+                plugin.getServer().getScheduler().runTask(plugin, rest);
+            }
+        }
+    }
+
+    /**
+     * Returns the message with its placeholders filled, if found.
+     *
+     * <p>Placeholders are written {@code %name%} or {@code {name}} in the message and are filled with the value's
+     * {@link Object#toString()} output. Every placeholder is filled in a single pass. Placeholders without a value are
+     * left as they are. Only delimited placeholders are filled: unlike
+     * {@link #getMessageAndReplace(String, Map.Entry[])}, other text matching a name is not replaced.</p>
+     *
+     * <p>The parsed form of each message text is cached, so a message is parsed again only after its text changes,
+     * such as in another locale or after a reload. The cache is emptied once it holds more than a few thousand
+     * texts.</p>
      * @param key the message key as found in the current localization method
-     * @param replacements key pairs that will be replaced in the String
+     * @param replacements the values of the placeholders
      * @return the message with the the given replacements
      */
-    public String getMessageAndReplace(String key, Pair<String, Object>... replacements) {
+    public String getMessageAndReplace(String key, Placeholders replacements) {
+        return getPlaceholderMessage(getMessage(key)).fill(replacements);
+    }
+
+    /**
+     * Returns the message with its placeholders filled, if found.
+     * @param key the message key as found in the current localization method
+     * @param replacements the values of the placeholders, by name
+     * @return the message with the the given replacements
+     * @see LanguageManager#getMessageAndReplace(String, Placeholders)
+     */
+    public String getMessageAndReplace(String key, Map<String, ?> replacements) {
+        return getPlaceholderMessage(getMessage(key)).fill(replacements);
+    }
+
+    /**
+     * Returns the message with every occurrence of each replacement's key replaced by its value, using
+     * {@link String#replace(CharSequence, CharSequence)}. This is how messages were filled before placeholders: the
+     * keys are any text, not just delimited placeholders, and the message is scanned and copied once per
+     * replacement. Code that passed javafx {@code Pair}s can pass {@link java.util.AbstractMap.SimpleEntry}s instead.
+     * @param key the message key as found in the current localization method
+     * @param replacements the text to replace and the value to replace it with
+     * @return the message with the the given replacements
+     * @deprecated use {@link #getMessageAndReplace(String, Placeholders)} with {@code %name%} or {@code {name}}
+     * placeholders in the message, which fills them in a single pass
+     */
+    @Deprecated
+    @SafeVarargs
+    public final String getMessageAndReplace(String key, Map.Entry<String, ?>... replacements) {
         String msg = getMessage(key);
 
-        for (Pair<String, Object> replacement : replacements) {
-            msg = msg.replace(replacement.getKey(), replacement.getValue().toString());
+        for (Map.Entry<String, ?> replacement : replacements) {
+            msg = msg.replace(replacement.getKey(), String.valueOf(replacement.getValue()));
         }
 
         return msg;
     }
 
+    /**
+     * Returns the message in the sender's locale with its placeholders filled, if found.
+     * @param sender the sender the message is for
+     * @param key the message key as found in the current localization method
+     * @param replacements the values of the placeholders
+     * @return the message with the the given replacements
+     * @see LanguageManager#getMessageAndReplace(String, Placeholders)
+     */
+    public String getMessageAndReplace(CommandSender sender, String key, Placeholders replacements) {
+        return getPlaceholderMessage(getMessage(sender, key)).fill(replacements);
+    }
+
+    /**
+     * Returns the message in the sender's locale with its placeholders filled, if found.
+     * @param sender the sender the message is for
+     * @param key the message key as found in the current localization method
+     * @param replacements the values of the placeholders, by name
+     * @return the message with the the given replacements
+     * @see LanguageManager#getMessageAndReplace(String, Placeholders)
+     */
+    public String getMessageAndReplace(CommandSender sender, String key, Map<String, ?> replacements) {
+        return getPlaceholderMessage(getMessage(sender, key)).fill(replacements);
+    }
+
+    /**
+     * Gets the parsed form of a message. Parsed messages are cached by their text rather than their key, so the same
+     * key in several locales, or before and after a reload, is parsed separately. Rather than tracking which texts are
+     * still in use, the whole cache is emptied once it holds more than {@code MAX_PARSED_MESSAGES} texts.
+     */
+    private PlaceholderMessage getPlaceholderMessage(String msg) {
+        if (placeholderMessages.size() > MAX_PARSED_MESSAGES) {
+            placeholderMessages.clear(); // texts from before reloads, or from locales that have been dropped
+        }
+        return placeholderMessages.computeIfAbsent(msg, PlaceholderMessage::parse);
+    }
+
+    /**
+     * Gets the message provider for a sender: the one for their client's locale if this manager has providers for
+     * each locale, or the single provider otherwise.
+     * @param sender the sender
+     * @return the sender's message provider
+     */
+    public MessageProvider getMessageProvider(CommandSender sender) {
+        if (localizedProviders == null) {
+            return messageProvider;
+        }
+        return localizedProviders.get(PlayerLocales.getLocale(sender));
+    }
+
+    /**
+     * Gets the providers of each locale, which expose how often each locale is used.
+     * @return the localized providers, or null if this manager has a single provider
+     */
+    public LocalizedMessageProviders getLocalizedProviders() {
+        return localizedProviders;
+    }
+
     public MessageProvider getMessageProvider() {
         return messageProvider;
     }
@@ -0,0 +1,169 @@
+package com.ethanzeigler.bukkitpluginutils.language;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Gives each locale its own {@link MessageProvider}, loading it the first time a player with that locale needs a
+ * message and sharing it between every player using the locale. A locale with no messages of its own falls back to
+ * its language without the country, such as {@code pt} for {@code pt_BR}, and then to the default locale.
+ *
+ * <p>Only a set number of locales are kept loaded; the one used least recently is dropped to make room. The default
+ * locale is always kept.</p>
+ */
+public class LocalizedMessageProviders {
+    private static final MessageProvider MISSING = key -> null;
+
+    private final Function<Locale, MessageProvider> loader;
+    private final Locale defaultLocale;
+    private final MessageProvider defaultProvider;
+    private final Map<Locale, MessageProvider> providers;
+    private final Map<Locale, AtomicLong> hits = new ConcurrentHashMap<>();
+
+    /**
+     * New providers
+     * @param loader loads the provider of a locale, throwing a {@link MissingResourceException} if it has none
+     * @param defaultLocale the locale to use when a player's locale has no messages
+     * @param maxLocales the most locales to keep loaded besides the default
+     * @throws MissingResourceException if the default locale cannot be loaded
+     */
+    public LocalizedMessageProviders(Function<Locale, MessageProvider> loader, Locale defaultLocale,
+                                     int maxLocales) throws MissingResourceException {
+        this.loader = loader;
+        this.defaultLocale = defaultLocale;
+        this.defaultProvider = loader.apply(defaultLocale);
+        this.providers = new LinkedHashMap<Locale, MessageProvider>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Locale, MessageProvider> eldest) {
+                return size() > maxLocales;
+            }
+        };
+    }
+
+    /**
+     * Providers that load {@link I18N} bundles with the given base name, such as {@code messages} for
+     * {@code messages_de.properties}.
+     * @param classLoader the class loader to load the bundles from
+     * @param resourceBundleBase the base name of the bundles
+     * @param defaultLocale the locale to use when a player's locale has no messages
+     * @param maxLocales the most locales to keep loaded besides the default
+     * @return the providers
+     * @throws MissingResourceException if the default locale's bundle cannot be found
+     */
+    public static LocalizedMessageProviders forI18N(ClassLoader classLoader, String resourceBundleBase,
+                                                    Locale defaultLocale, int maxLocales)
+            throws MissingResourceException {
+        return new LocalizedMessageProviders(locale -> new I18N(classLoader, new Language() {
+            @Override
+            public Locale getLocale() {
+                return locale;
+            }
+
+            @Override
+            public String getResourceBundleBase() {
+                return resourceBundleBase;
+            }
+        }), defaultLocale, maxLocales);
+    }
+
+    /**
+     * Gets the provider for a locale, following the fallback chain.
+     * @param locale the locale, or null for the default locale
+     * @return the locale's provider
+     */
+    public MessageProvider get(Locale locale) {
+        if (locale == null || locale.equals(defaultLocale)) {
+            countHit(defaultLocale);
+            return defaultProvider;
+        }
+
+        MessageProvider provider = getLoaded(locale);
+        if (provider == MISSING && !locale.getCountry().isEmpty()) {
+            locale = new Locale(locale.getLanguage());
+            provider = locale.equals(defaultLocale) ? defaultProvider : getLoaded(locale);
+        }
+        if (provider == MISSING) {
+            locale = defaultLocale;
+            provider = defaultProvider;
+        }
+        countHit(locale);
+        return provider;
+    }
+
+    /**
+     * Gets the locale's own provider, loading it if needed.
+     * @return the provider, or {@link #MISSING} if the locale has no messages of its own
+     */
+    private MessageProvider getLoaded(Locale locale) {
+        synchronized (providers) {
+            MessageProvider provider = providers.get(locale);
+            if (provider != null) {
+                return provider;
+            }
+        }
+
+        // load without the lock so one slow bundle does not hold up other locales
+        MessageProvider provider;
+        try {
+            provider = loader.apply(locale);
+            // a bundle for a more general locale was found instead, which the fallback chain will load itself
+            if (provider instanceof I18N && !((I18N) provider).getBundleLocale().equals(locale)) {
+                provider = MISSING;
+            }
+        } catch (MissingResourceException e) {
+            provider = MISSING;
+        }
+
+        synchronized (providers) {
+            MessageProvider loaded = providers.putIfAbsent(locale, provider);
+            return loaded != null ? loaded : provider;
+        }
+    }
+
+    private void countHit(Locale locale) {
+        hits.computeIfAbsent(locale, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Gets how many times each locale's provider has been used, counting the locale actually used after fallback.
+     * @return the hits of each locale
+     */
+    public Map<Locale, Long> getHitCounts() {
+        Map<Locale, Long> counts = new HashMap<>();
+        hits.forEach((locale, count) -> counts.put(locale, count.get()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Gets the number of locales currently loaded, besides the default.
+     * @return the number of loaded locales
+     */
+    public int getLoadedCount() {
+        synchronized (providers) {
+            return providers.size();
+        }
+    }
+
+    /**
+     * Gets the locale used when a player's locale has no messages.
+     * @return the default locale
+     */
+    public Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    /**
+     * Gets the default locale's provider.
+     * @return the default provider
+     */
+    public MessageProvider getDefaultProvider() {
+        return defaultProvider;
+    }
+}
@@ -0,0 +1,210 @@
+package com.ethanzeigler.bukkitpluginutils.language;
+
+import java.text.ChoiceFormat;
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link MessageFormat} pattern parsed once into literal text and arguments, which can then be rendered any number
+ * of times from any thread at once. The output is the same as {@link MessageFormat#format(Object)}: plain arguments
+ * such as {@code {0}} are formatted as numbers, dates, strings or with {@link Object#toString()}, and arguments with a
+ * type such as {@code {0,number,#.##}} use the same formats MessageFormat would.
+ *
+ * <p>Number and date formats are not thread safe, so each thread keeps its own for plain arguments. Arguments with a
+ * type copy their format each time they are rendered.</p>
+ */
+public final class MessageTemplate {
+    private static final int ARGUMENT_LENGTH_HINT = 16;
+    private static final ThreadLocal<Formats> formats = new ThreadLocal<>();
+
+    private final Locale locale;
+    private final Object[] segments;
+    private final int lengthHint;
+
+    private MessageTemplate(Locale locale, Object[] segments) {
+        this.locale = locale;
+        this.segments = segments;
+
+        int length = 0;
+        for (Object segment : segments) {
+            length += segment instanceof String ? ((String) segment).length() : ARGUMENT_LENGTH_HINT;
+        }
+        this.lengthHint = length;
+    }
+
+    /**
+     * Parses a pattern using {@link MessageFormat}'s syntax. As with MessageFormat, a closing brace outside an
+     * argument is kept as text.
+     * @param pattern the pattern
+     * @param locale the locale to format numbers and dates for
+     * @return the template
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static MessageTemplate compile(String pattern, Locale locale) {
+        List<Object> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i++;
+                } else {
+                    isQuoted = !isQuoted;
+                }
+            } else if (c == '{' && !isQuoted) {
+                int end = findArgumentEnd(pattern, i);
+                if (literal.length() > 0) {
+                    segments.add(literal.toString());
+                    literal.setLength(0);
+                }
+                segments.add(parseArgument(pattern.substring(i + 1, end), locale));
+                i = end;
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            segments.add(literal.toString());
+        }
+        return new MessageTemplate(locale, segments.toArray());
+    }
+
+    /**
+     * Renders the template with the arguments.
+     * @param arguments the arguments, by index
+     * @return the rendered message
+     */
+    public String format(Object... arguments) {
+        // a new builder each time, since an argument's toString may format another template on this thread
+        StringBuilder builder = new StringBuilder(lengthHint);
+        formatTo(builder, arguments);
+        return builder.toString();
+    }
+
+    /**
+     * Renders the template with the arguments onto the end of a builder.
+     * @param builder the builder to append to
+     * @param arguments the arguments, by index
+     */
+    public void formatTo(StringBuilder builder, Object... arguments) {
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                builder.append((String) segment);
+            } else {
+                ((Argument) segment).formatTo(builder, arguments, locale);
+            }
+        }
+    }
+
+    /**
+     * Finds the brace that closes the argument opened at start, skipping braces nested in its style.
+     */
+    private static int findArgumentEnd(String pattern, int start) {
+        int depth = 0;
+        boolean isQuoted = false;
+        for (int i = start + 1; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                isQuoted = !isQuoted;
+            } else if (!isQuoted && c == '{') {
+                depth++;
+            } else if (!isQuoted && c == '}') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        throw new IllegalArgumentException("Unmatched braces in the pattern.");
+    }
+
+    private static Argument parseArgument(String text, Locale locale) {
+        int comma = text.indexOf(',');
+        String indexText = (comma == -1 ? text : text.substring(0, comma)).trim();
+        int index;
+        try {
+            index = Integer.parseInt(indexText);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("can't parse argument number: " + indexText, e);
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("negative argument number: " + index);
+        }
+
+        // let MessageFormat build typed formats, so they behave exactly as it would
+        Format format = comma == -1 ? null : new MessageFormat("{0" + text.substring(comma) + "}", locale)
+                .getFormats()[0];
+        return new Argument(index, format);
+    }
+
+    /**
+     * An argument and the format it was given, if any.
+     */
+    private static class Argument {
+        private final int index;
+        private final Format format;
+
+        private Argument(int index, Format format) {
+            this.index = index;
+            this.format = format;
+        }
+
+        private void formatTo(StringBuilder builder, Object[] arguments, Locale locale) {
+            if (arguments == null || index >= arguments.length) {
+                builder.append('{').append(index).append('}');
+                return;
+            }
+
+            Object argument = arguments[index];
+            if (argument == null) {
+                builder.append("null");
+            } else if (format != null) {
+                String formatted = ((Format) format.clone()).format(argument);
+                if (format instanceof ChoiceFormat && formatted.indexOf('{') >= 0) {
+                    formatted = new MessageFormat(formatted, locale).format(arguments);
+                }
+                builder.append(formatted);
+            } else if (argument instanceof Number) {
+                builder.append(getFormats(locale).number.format(argument));
+            } else if (argument instanceof Date) {
+                builder.append(getFormats(locale).date.format(argument));
+            } else if (argument instanceof String) {
+                builder.append((String) argument);
+            } else {
+                builder.append(argument.toString());
+            }
+        }
+    }
+
+    private static Formats getFormats(Locale locale) {
+        Formats current = formats.get();
+        if (current == null || !current.locale.equals(locale)) {
+            current = new Formats(locale);
+            formats.set(current);
+        }
+        return current;
+    }
+
+    /**
+     * One thread's formats for plain number and date arguments.
+     */
+    private static class Formats {
+        private final Locale locale;
+        private final NumberFormat number;
+        private final DateFormat date;
+
+        private Formats(Locale locale) {
+            this.locale = locale;
+            this.number = NumberFormat.getInstance(locale);
+            this.date = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.ethanzeigler.bukkitpluginutils.language;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message parsed once into literal text and named placeholders, so every placeholder can be filled in a single pass
+ * without searching the message again. Placeholders are written {@code %name%} or {@code {name}}, where the name is
+ * made of letters, digits, {@code _}, {@code -} and {@code .}. A placeholder with no value is left as it was written.
+ */
+public final class PlaceholderMessage {
+    private final String source;
+    private final String[] literals;
+    private final String[] names;
+    private final String[] rawPlaceholders;
+
+    private PlaceholderMessage(String source, String[] literals, String[] names, String[] rawPlaceholders) {
+        this.source = source;
+        this.literals = literals;
+        this.names = names;
+        this.rawPlaceholders = rawPlaceholders;
+    }
+
+    /**
+     * Parses a message.
+     * @param message the message
+     * @return the parsed message
+     */
+    public static PlaceholderMessage parse(String message) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> raw = new ArrayList<>();
+        int literalStart = 0;
+        for (int i = 0; i < message.length(); i++) {
+            char open = message.charAt(i);
+            if (open != '%' && open != '{') {
+                continue;
+            }
+
+            int end = findEnd(message, i + 1, open == '%' ? '%' : '}');
+            if (end != -1) {
+                literals.add(message.substring(literalStart, i));
+                names.add(message.substring(i + 1, end));
+                raw.add(message.substring(i, end + 1));
+                literalStart = end + 1;
+                i = end;
+            }
+        }
+        literals.add(message.substring(literalStart));
+        return new PlaceholderMessage(message, literals.toArray(new String[0]), names.toArray(new String[0]),
+                raw.toArray(new String[0]));
+    }
+
+    /**
+     * Fills the placeholders.
+     * @param values the values to fill them with
+     * @return the filled message
+     */
+    public String fill(Placeholders values) {
+        if (names.length == 0) {
+            return source;
+        }
+
+        StringBuilder builder = newBuilder();
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]);
+            Object value = values.get(names[i]);
+            if (value != null || values.contains(names[i])) {
+                builder.append(value);
+            } else {
+                builder.append(rawPlaceholders[i]);
+            }
+        }
+        return builder.append(literals[names.length]).toString();
+    }
+
+    /**
+     * Fills the placeholders. Map keys may be written with or without delimiters, though plain names are found
+     * fastest.
+     * @param values the values to fill them with, by placeholder name
+     * @return the filled message
+     */
+    public String fill(Map<String, ?> values) {
+        if (names.length == 0) {
+            return source;
+        }
+
+        StringBuilder builder = newBuilder();
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]);
+            if (values.containsKey(names[i])) {
+                builder.append(values.get(names[i]));
+                continue;
+            }
+
+            String percentForm = "%" + names[i] + "%";
+            String braceForm = "{" + names[i] + "}";
+            if (values.containsKey(percentForm)) {
+                builder.append(values.get(percentForm));
+            } else if (values.containsKey(braceForm)) {
+                builder.append(values.get(braceForm));
+            } else {
+                builder.append(rawPlaceholders[i]);
+            }
+        }
+        return builder.append(literals[names.length]).toString();
+    }
+
+    /**
+     * Creates a builder for one fill. It is never shared, since a value's toString may fill another message on this
+     * thread.
+     */
+    private StringBuilder newBuilder() {
+        return new StringBuilder(source.length() + 16 * names.length);
+    }
+
+    /**
+     * Gets the message this was parsed from.
+     * @return the source message
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Removes {@code %...%} or {@code {...}} from around a placeholder name.
+     */
+    static String stripDelimiters(String name) {
+        int last = name.length() - 1;
+        if (last > 0 && (name.charAt(0) == '%' && name.charAt(last) == '%'
+                || name.charAt(0) == '{' && name.charAt(last) == '}')) {
+            return name.substring(1, last);
+        }
+        return name;
+    }
+
+    /**
+     * Finds the delimiter that closes a placeholder whose name starts at start.
+     * @return the delimiter's index, or -1 if the text is not a placeholder
+     */
+    private static int findEnd(String message, int start, char close) {
+        for (int i = start; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == close) {
+                return i > start ? i : -1;
+            } else if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
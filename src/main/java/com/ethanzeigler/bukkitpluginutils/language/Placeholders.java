@@ -0,0 +1,101 @@
+package com.ethanzeigler.bukkitpluginutils.language;
+
+import java.util.Arrays;
+
+/**
+ * The values to fill a message's placeholders with, kept in two small arrays instead of a map since messages rarely
+ * have more than a few placeholders.
+ *
+ * <pre>{@code
+ * languageManager.getMessageAndReplace("coins.received", Placeholders.of("player", name).and("coins", amount));
+ * }</pre>
+ *
+ * <p>Names may be given with or without their delimiters, so {@code "player"}, {@code "%player%"} and
+ * {@code "{player}"} all fill the same placeholder.</p>
+ */
+public final class Placeholders {
+    private String[] names;
+    private Object[] values;
+    private int size;
+
+    private Placeholders(int capacity) {
+        names = new String[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Values for a message with one placeholder.
+     * @param name the placeholder's name
+     * @param value the value to fill it with
+     * @return the values
+     */
+    public static Placeholders of(String name, Object value) {
+        return new Placeholders(4).and(name, value);
+    }
+
+    /**
+     * Values for several placeholders, given as alternating names and values.
+     * @param namesAndValues the names and values, such as {@code "player", name, "coins", amount}
+     * @return the values
+     * @throws IllegalArgumentException if a name is missing its value or is not a string
+     */
+    public static Placeholders of(Object... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Every placeholder name needs a value");
+        }
+
+        Placeholders placeholders = new Placeholders(Math.max(1, namesAndValues.length / 2));
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (!(namesAndValues[i] instanceof String)) {
+                throw new IllegalArgumentException("Placeholder names must be strings: " + namesAndValues[i]);
+            }
+            placeholders.and((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return placeholders;
+    }
+
+    /**
+     * Adds a value for another placeholder.
+     * @param name the placeholder's name
+     * @param value the value to fill it with
+     * @return these values
+     */
+    public Placeholders and(String name, Object value) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        names[size] = PlaceholderMessage.stripDelimiters(name);
+        values[size] = value;
+        size++;
+        return this;
+    }
+
+    /**
+     * Gets the value of a placeholder.
+     * @param name the placeholder's name, without delimiters
+     * @return the value, or null if there is none
+     */
+    public Object get(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets whether there is a value for a placeholder.
+     * @param name the placeholder's name, without delimiters
+     * @return whether it has a value
+     */
+    public boolean contains(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ethanzeigler.bukkitpluginutils.language;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+/**
+ * Finds the locale a player's client is set to. {@code Player#getLocale()} only exists from Minecraft 1.12, and
+ * before that the locale is only available through Spigot's {@code Player.Spigot#getLocale()}, so both are looked up
+ * by reflection once and whichever exists is used.
+ */
+public final class PlayerLocales {
+    private static final Method playerGetLocale = findMethod(Player.class, "getLocale");
+    private static final Method spigotMethod = findMethod(Player.class, "spigot");
+    private static final Method spigotGetLocale = spigotMethod == null ? null
+            : findMethod(spigotMethod.getReturnType(), "getLocale");
+
+    private PlayerLocales() {
+    }
+
+    /**
+     * Gets the locale of a sender's client.
+     * @param sender the sender
+     * @return the client's locale, or null if the sender is not a player or the server cannot tell
+     */
+    public static Locale getLocale(CommandSender sender) {
+        if (!(sender instanceof Player)) {
+            return null;
+        }
+
+        try {
+            Object locale = null;
+            if (playerGetLocale != null) {
+                locale = playerGetLocale.invoke(sender);
+            } else if (spigotGetLocale != null) {
+                locale = spigotGetLocale.invoke(spigotMethod.invoke(sender));
+            }
+            return locale instanceof String ? parse((String) locale) : null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a Minecraft locale such as {@code en_us} or {@code pt_BR}.
+     * @param locale the locale name
+     * @return the locale, or null if the name is empty
+     */
+    public static Locale parse(String locale) {
+        if (locale.isEmpty()) {
+            return null;
+        }
+
+        String[] parts = locale.split("[_-]", 3);
+        if (parts.length == 1) {
+            return new Locale(parts[0].toLowerCase(Locale.ENGLISH));
+        }
+        return new Locale(parts[0].toLowerCase(Locale.ENGLISH), parts[1].toUpperCase(Locale.ENGLISH));
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            Method method = type.getMethod(name);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+}
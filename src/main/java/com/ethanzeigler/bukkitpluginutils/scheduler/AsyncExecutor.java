@@ -0,0 +1,395 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+import org.bukkit.Bukkit;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs async work on a bounded set of threads owned by BPU, rather than Bukkit's async scheduler, which starts a new
+ * thread whenever none is free. At most a set number of tasks run at once and a set number wait; beyond that the
+ * executor's {@link RejectionPolicy} decides what happens. The server's main thread never runs or waits for a rejected
+ * task: {@link RejectionPolicy#CALLER_RUNS} hands it to the overflow executor given to
+ * {@link #offer(Runnable, Executor)} instead, which is not bounded by this executor's limits, and
+ * {@link RejectionPolicy#BLOCK} rejects it straight away.
+ *
+ * <p>On Java 21 and later the executor can run each task on its own virtual thread instead. The same limits apply, so
+ * a burst of tasks still cannot grow without bound. Whether virtual threads are available is checked when the
+ * executor is created, so the same jar runs on Java 8 servers.</p>
+ *
+ * <p>An executor may belong to one plugin or be {@link #retainShared(Options, Logger) shared} by every BPU plugin on
+ * the server.</p>
+ */
+public class AsyncExecutor implements Executor {
+    private static final AtomicInteger threadIds = new AtomicInteger();
+    private static AsyncExecutor shared;
+    private static int sharedUsers;
+
+    private final ExecutorService executor;
+    private final BlockingQueue<Runnable> queue;
+    private final Semaphore permits;
+    private final RejectionPolicy policy;
+    private final long blockTimeoutMillis;
+    private final boolean isVirtual;
+    private final Logger logger;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong callerRuns = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    /**
+     * A new executor with the given limits.
+     * @param options the executor's limits and policy
+     * @param logger the logger to report exceptions thrown by tasks to
+     */
+    public AsyncExecutor(Options options, Logger logger) {
+        this.logger = logger;
+        this.policy = options.policy;
+        this.blockTimeoutMillis = options.blockTimeoutMillis;
+
+        ExecutorService virtual = options.isVirtualThreadsOn ? createVirtualExecutor() : null;
+        if (virtual != null) {
+            // every task gets a thread, so the permits bound running and waiting tasks together
+            this.executor = virtual;
+            this.queue = null;
+            this.permits = new Semaphore(options.threads + options.queueCapacity);
+            this.isVirtual = true;
+        } else {
+            this.queue = options.queueCapacity > 0
+                    ? new ArrayBlockingQueue<>(options.queueCapacity) : new SynchronousQueue<>();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(options.threads, options.threads, 60, TimeUnit.SECONDS,
+                    queue, runnable -> {
+                        Thread thread = new Thread(runnable, "BukkitPluginUtils Async " + threadIds.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, (runnable, executor) -> {
+                        throw new FullException();
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.permits = null;
+            this.isVirtual = false;
+        }
+    }
+
+    /**
+     * Gets the executor shared by every BPU plugin, creating it with the given options if no plugin is using it.
+     * Each call must be matched by a call to {@link #releaseShared(long)}.
+     * @param options the options to create the shared executor with
+     * @param logger the logger to report exceptions thrown by tasks to if the shared executor is created. Tasks from
+     *               every plugin are reported to it, so plugins should catch their tasks' exceptions themselves.
+     * @return the shared executor
+     */
+    public static synchronized AsyncExecutor retainShared(Options options, Logger logger) {
+        if (shared == null) {
+            shared = new AsyncExecutor(options, logger);
+        }
+        sharedUsers++;
+        return shared;
+    }
+
+    /**
+     * Stops using the shared executor, shutting it down once no plugin is using it.
+     * @param timeoutMillis how long to wait for running tasks if it is shut down
+     */
+    public static synchronized void releaseShared(long timeoutMillis) {
+        if (shared != null && --sharedUsers == 0) {
+            shared.shutdown(timeoutMillis);
+            shared = null;
+        }
+    }
+
+    /**
+     * Runs the task on another thread, or applies the rejection policy if the executor is full. There is no overflow
+     * executor, so a task the main thread would have to run itself is rejected.
+     * @param task the task to run
+     * @throws RejectedExecutionException if the policy is {@link RejectionPolicy#BLOCK} and no room was made in time,
+     * the task was submitted from the main thread and could not be queued, or the executor has been shut down
+     */
+    @Override
+    public void execute(Runnable task) {
+        offer(task, null);
+    }
+
+    /**
+     * Runs the task on another thread, or applies the rejection policy if the executor is full.
+     * @param task the task to run
+     * @param overflow runs the task when {@link RejectionPolicy#CALLER_RUNS} applies on the main thread, or null to
+     *                 reject it
+     * @return false if the task was dropped by {@link RejectionPolicy#DROP}, in which case it will never run
+     * @throws RejectedExecutionException if the policy is {@link RejectionPolicy#BLOCK} and no room was made in time,
+     * the task was submitted from the main thread and could not be queued or overflowed, or the executor has been shut
+     * down
+     */
+    public boolean offer(Runnable task, Executor overflow) {
+        Runnable tracked = track(task);
+        if (isVirtual) {
+            if (permits.tryAcquire()) {
+                submitVirtual(tracked);
+                return true;
+            }
+            return reject(tracked, overflow);
+        }
+
+        // the pool only calls the rejection handler with the task, so a full queue is handled here
+        try {
+            executor.execute(tracked);
+            return true;
+        } catch (FullException e) {
+            return reject(tracked, overflow);
+        }
+    }
+
+    /**
+     * Stops accepting tasks and waits for queued and running tasks to finish.
+     * @param timeoutMillis the longest to wait
+     * @return whether every task finished in time
+     */
+    public boolean shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Counts the task as waiting until it starts, and logs anything it throws.
+     */
+    private Runnable track(Runnable task) {
+        waiting.incrementAndGet();
+        return () -> {
+            waiting.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "An async task threw an exception", t);
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        };
+    }
+
+    private void submitVirtual(Runnable tracked) {
+        try {
+            executor.execute(() -> {
+                try {
+                    tracked.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            waiting.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean reject(Runnable tracked, Executor overflow) {
+        if (executor.isShutdown()) {
+            waiting.decrementAndGet();
+            throw new RejectedExecutionException("The async executor has been shut down");
+        }
+
+        switch (policy) {
+            case CALLER_RUNS:
+                if (Bukkit.isPrimaryThread()) {
+                    // running it here would stall the server, so it gets a thread from elsewhere
+                    overflow(tracked, overflow);
+                } else {
+                    callerRuns.incrementAndGet();
+                    tracked.run();
+                }
+                return true;
+            case DROP:
+                waiting.decrementAndGet();
+                dropped.incrementAndGet();
+                return false;
+            default:
+                if (Bukkit.isPrimaryThread()) {
+                    // waiting for room would stall the server
+                    waiting.decrementAndGet();
+                    dropped.incrementAndGet();
+                    throw new RejectedExecutionException("The async executor is full");
+                }
+
+                try {
+                    if (isVirtual) {
+                        if (permits.tryAcquire(blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            submitVirtual(tracked);
+                            return true;
+                        }
+                    } else if (queue.offer(tracked, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                waiting.decrementAndGet();
+                dropped.incrementAndGet();
+                throw new RejectedExecutionException("The async executor stayed full for " + blockTimeoutMillis
+                        + "ms");
+        }
+    }
+
+    /**
+     * Hands a task the main thread would otherwise have run to the overflow executor.
+     */
+    private void overflow(Runnable tracked, Executor overflow) {
+        if (overflow == null) {
+            waiting.decrementAndGet();
+            dropped.incrementAndGet();
+            throw new RejectedExecutionException("The async executor is full and has no overflow executor");
+        }
+
+        try {
+            overflow.execute(tracked);
+        } catch (RuntimeException e) {
+            waiting.decrementAndGet();
+            dropped.incrementAndGet();
+            throw e;
+        }
+        overflowed.incrementAndGet();
+    }
+
+    /**
+     * Creates a virtual thread per task executor through reflection, since it only exists on Java 21 and later.
+     * @return the executor, or null if virtual threads are not available
+     */
+    private static ExecutorService createVirtualExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets whether tasks run on virtual threads.
+     * @return whether virtual threads are in use
+     */
+    public boolean isVirtual() {
+        return isVirtual;
+    }
+
+    /**
+     * Gets the number of tasks waiting to start.
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    /**
+     * Gets the number of tasks running.
+     * @return the number of active tasks
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Gets the number of threads in the pool. Virtual threads are not pooled, so this is the number of running tasks
+     * when they are in use.
+     * @return the pool size
+     */
+    public int getPoolSize() {
+        return isVirtual ? active.get() : ((ThreadPoolExecutor) executor).getPoolSize();
+    }
+
+    /**
+     * Gets the number of tasks that have finished.
+     * @return the number of completed tasks
+     */
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * Gets the number of tasks discarded because the executor was full.
+     * @return the number of dropped tasks
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of tasks run on the submitting thread because the executor was full.
+     * @return the number of caller run tasks
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.get();
+    }
+
+    /**
+     * Gets the number of tasks handed to an overflow executor because the executor was full when the main thread
+     * submitted them.
+     * @return the number of overflowed tasks
+     */
+    public long getOverflowCount() {
+        return overflowed.get();
+    }
+
+    /**
+     * Thrown by the pool's rejection handler so a full queue can be handled with the submitter's overflow executor.
+     */
+    private static class FullException extends RejectedExecutionException {
+        private FullException() {
+            super("The async executor is full");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * The limits and policy of an executor.
+     */
+    public static class Options {
+        private final int threads;
+        private final int queueCapacity;
+        private final RejectionPolicy policy;
+        private final long blockTimeoutMillis;
+        private final boolean isVirtualThreadsOn;
+
+        /**
+         * New options
+         * @param threads the most tasks that may run at once
+         * @param queueCapacity the most tasks that may wait to run
+         * @param policy what to do with tasks when both are reached
+         * @param blockTimeoutMillis how long {@link RejectionPolicy#BLOCK} waits for room
+         * @param isVirtualThreadsOn whether to use virtual threads when the JVM has them
+         */
+        public Options(int threads, int queueCapacity, RejectionPolicy policy, long blockTimeoutMillis,
+                       boolean isVirtualThreadsOn) {
+            this.threads = Math.max(1, threads);
+            this.queueCapacity = Math.max(0, queueCapacity);
+            this.policy = policy;
+            this.blockTimeoutMillis = blockTimeoutMillis;
+            this.isVirtualThreadsOn = isVirtualThreadsOn;
+        }
+    }
+}
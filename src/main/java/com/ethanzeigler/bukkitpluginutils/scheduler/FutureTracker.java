@@ -0,0 +1,112 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+
+/**
+ * Keeps track of a plugin's unfinished futures so they can be timed out, and cancelled when the plugin is disabled.
+ * Futures that fail are logged, so errors in a pipeline nobody waits on are not lost. Tracking several stages of the
+ * same pipeline logs each failure once.
+ */
+public class FutureTracker {
+    private static ScheduledThreadPoolExecutor timer;
+
+    private final Plugin plugin;
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    // a failure reaches every later stage of a pipeline, so it is only logged the first time it is seen
+    private final Set<Throwable> logged = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * A new tracker
+     * @param plugin the plugin whose logger failures are logged to
+     */
+    public FutureTracker(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Tracks the future until it completes. If the plugin is disabled first, it is cancelled.
+     * @param future the future to track
+     * @param <T> the type of the future's result
+     * @return the same future
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        return track(future, 0);
+    }
+
+    /**
+     * Tracks the future until it completes, failing it with a {@link TimeoutException} if it takes too long. If the
+     * plugin is disabled first, it is cancelled.
+     * @param future the future to track
+     * @param timeoutMillis the longest the future may take, or 0 to wait as long as it takes
+     * @param <T> the type of the future's result
+     * @return the same future
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future, long timeoutMillis) {
+        pending.add(future);
+        ScheduledFuture<?> timeout = timeoutMillis <= 0 ? null : getTimer().schedule(() ->
+                future.completeExceptionally(new TimeoutException("Timed out after " + timeoutMillis + "ms")),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+
+        future.whenComplete((result, error) -> {
+            pending.remove(future);
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause != null && !(cause instanceof CancellationException) && logged.add(cause)) {
+                plugin.getLogger().log(Level.WARNING, "An asynchronous operation failed", cause);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels every unfinished future.
+     * @return the number of futures cancelled
+     */
+    public int cancelAll() {
+        int cancelled = 0;
+        for (CompletableFuture<?> future : new ArrayList<>(pending)) {
+            if (future.cancel(false)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Gets the number of unfinished futures.
+     * @return the number of pending futures
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private static synchronized ScheduledThreadPoolExecutor getTimer() {
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "BukkitPluginUtils Future Timeouts");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,186 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks submitted under the same key one at a time in the order they were submitted, while tasks under different
+ * keys run in parallel on the underlying executor. Use a player's id as the key to make sure their data is saved
+ * before it is read back, without making every other player wait.
+ *
+ * <p>No thread is held for a key: a key's tasks are run by one task on the underlying executor, which gives its thread
+ * back after a few tasks so a busy key cannot starve the others. A key is forgotten as soon as it has no more tasks,
+ * so keys that stop being used take no memory.</p>
+ *
+ * <p>If the underlying executor rejects a key's run, every task queued under the key is dropped: the caller whose
+ * task needed the run gets the {@link RejectedExecutionException}, and tasks other callers queued meanwhile are
+ * cancelled if they are {@link Future}s and logged either way.</p>
+ * @param <K> the type of key
+ */
+public class KeyedSerialExecutor<K> {
+    private static final int TASKS_PER_RUN = 16;
+
+    private final Executor executor;
+    private final Logger logger;
+    private final ConcurrentHashMap<K, KeyQueue<K>> queues = new ConcurrentHashMap<>();
+    private final AtomicLong tasksRun = new AtomicLong();
+
+    /**
+     * A new executor
+     * @param executor the executor to run tasks on
+     * @param logger the logger to report exceptions thrown by tasks, and dropped tasks, to
+     */
+    public KeyedSerialExecutor(Executor executor, Logger logger) {
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    /**
+     * Queues the task to run after every task already queued under the same key.
+     * @param key the key to order the task by
+     * @param task the task to run
+     * @throws RejectedExecutionException if the underlying executor rejects the key's tasks
+     */
+    @SuppressWarnings("unchecked")
+    public void execute(K key, Runnable task) {
+        KeyQueue<K>[] created = new KeyQueue[1];
+        queues.compute(key, (k, queue) -> {
+            if (queue == null) {
+                queue = created[0] = new KeyQueue<>(k);
+            }
+            queue.tasks.add(task);
+            return queue;
+        });
+
+        // a key has a queue exactly while a run is scheduled for it, so only a new queue needs one
+        if (created[0] != null) {
+            try {
+                executor.execute(() -> run(created[0]));
+            } catch (RejectedExecutionException e) {
+                List<Runnable> dropped = abandon(created[0]);
+                dropped.remove(task); // its caller gets the exception
+                drop(created[0].key, dropped, e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Gets an executor that queues every task under the key, for use with
+     * {@link java.util.concurrent.CompletableFuture} pipelines.
+     * @param key the key to order tasks by
+     * @return the key's executor
+     */
+    public Executor forKey(K key) {
+        return task -> execute(key, task);
+    }
+
+    /**
+     * Gets the number of keys with tasks queued or running.
+     * @return the number of active keys
+     */
+    public int getActiveKeyCount() {
+        return queues.size();
+    }
+
+    /**
+     * Gets the number of tasks run.
+     * @return the number of tasks run
+     */
+    public long getTasksRun() {
+        return tasksRun.get();
+    }
+
+    /**
+     * Forgets the key's queue, unless it was already replaced, and takes every task still in it.
+     */
+    private List<Runnable> abandon(KeyQueue<K> queue) {
+        List<Runnable> tasks = new ArrayList<>();
+        queues.computeIfPresent(queue.key, (k, current) -> {
+            if (current != queue) {
+                return current;
+            }
+            tasks.addAll(current.tasks);
+            current.tasks.clear();
+            return null;
+        });
+        return tasks;
+    }
+
+    /**
+     * Cancels and logs tasks that will never run because their key's run was rejected.
+     */
+    private void drop(K key, List<Runnable> tasks, RejectedExecutionException cause) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        for (Runnable task : tasks) {
+            if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+        logger.log(Level.WARNING, tasks.size() + " tasks for " + key + " were dropped because they could not be "
+                + "scheduled", cause);
+    }
+
+    /**
+     * Runs a few of the key's tasks, then schedules another run if there are more.
+     */
+    private void run(KeyQueue<K> queue) {
+        for (int i = 0; i < TASKS_PER_RUN; i++) {
+            Runnable task = next(queue);
+            if (task == null) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "A task for " + queue.key + " threw an exception", t);
+            }
+            tasksRun.incrementAndGet();
+        }
+
+        try {
+            executor.execute(() -> run(queue));
+        } catch (RejectedExecutionException e) {
+            drop(queue.key, abandon(queue), e);
+        }
+    }
+
+    /**
+     * Takes the key's next task, forgetting the key if there is none.
+     */
+    private Runnable next(KeyQueue<K> queue) {
+        queue.next = null;
+        queues.computeIfPresent(queue.key, (k, current) -> {
+            if (current != queue) {
+                return current; // this run was abandoned when scheduling it failed
+            }
+            current.next = current.tasks.poll();
+            return current.next == null ? null : current;
+        });
+        return queue.next;
+    }
+
+    /**
+     * A key's tasks. Only read and changed while the map holds the key's lock.
+     */
+    private static class KeyQueue<K> {
+        private final K key;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>(4);
+        private Runnable next;
+
+        private KeyQueue(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Runs work on the main thread on the next tick without scheduling a Bukkit task for each piece of work. Work is
+ * pushed onto an {@link MpscQueue} and one repeating task runs everything queued once a tick, in the order each thread
+ * queued it.
+ */
+public class MainThreadDispatcher implements Executor {
+    private final Plugin plugin;
+    private final MpscQueue<Runnable> queue = new MpscQueue<>();
+    private final AtomicLong dispatched = new AtomicLong();
+    private volatile BukkitTask drainTask;
+
+    /**
+     * A new dispatcher. Work queued before {@link #start()} is called waits until it is.
+     * @param plugin the plugin to schedule the drain task for
+     */
+    public MainThreadDispatcher(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts running queued work every tick. Must be called from the main thread.
+     */
+    public void start() {
+        drainTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::drain, 1, 1);
+    }
+
+    /**
+     * Stops the drain task and runs everything still queued. Must be called from the main thread.
+     */
+    public void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        drain();
+    }
+
+    /**
+     * Queues the task to run on the main thread on the next tick. Safe to call from any thread.
+     * @param task the task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        queue.offer(task);
+    }
+
+    /**
+     * Gets whether queued work is being run. Once the dispatcher is shut down, work should be scheduled some other
+     * way.
+     * @return whether the drain task is running
+     */
+    public boolean isRunning() {
+        return drainTask != null;
+    }
+
+    /**
+     * Runs everything queued so far. Work queued by the tasks themselves waits for the next tick, as it would with
+     * {@link org.bukkit.scheduler.BukkitScheduler#runTask}.
+     */
+    private void drain() {
+        // mark the end first so work queued while draining waits, and the loop cannot run forever
+        MarkerTask marker = new MarkerTask();
+        queue.offer(marker);
+        Runnable task;
+        while ((task = queue.poll()) != marker && task != null) {
+            if (task instanceof MarkerTask) {
+                continue; // left behind by a drain that stopped at a producer still linking its task
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                plugin.getLogger().log(Level.SEVERE, "A main thread task threw an exception", t);
+            }
+            dispatched.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of tasks run.
+     * @return the number of dispatched tasks
+     */
+    public long getDispatched() {
+        return dispatched.get();
+    }
+
+    /**
+     * Marks where a drain started, so it stops there.
+     */
+    private static class MarkerTask implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
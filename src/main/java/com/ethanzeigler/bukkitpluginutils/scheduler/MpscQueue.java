@@ -0,0 +1,70 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An unbounded lock-free queue for many producer threads and a single consumer thread. Producers only swap the tail
+ * and link the old tail to their node, so offering never blocks or retries, and items from each producer are taken in
+ * the order that producer offered them.
+ *
+ * <p>Only one thread may call {@link #poll()} and {@link #isEmpty()}.</p>
+ * @param <T> the type of item
+ */
+public class MpscQueue<T> {
+    private final AtomicReference<Node<T>> tail;
+    private Node<T> head;
+
+    /**
+     * An empty queue
+     */
+    public MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Adds an item to the end of the queue. Safe to call from any thread.
+     * @param item the item, which must not be null
+     */
+    public void offer(T item) {
+        Node<T> node = new Node<>(item);
+        Node<T> previous = tail.getAndSet(node);
+        // between the swap and this link, the consumer sees the queue end at previous
+        previous.next = node;
+    }
+
+    /**
+     * Takes the item at the front of the queue. An item whose producer is part way through offering it may not be
+     * visible yet; it will be on a later poll.
+     * @return the item, or null if the queue is empty
+     */
+    public T poll() {
+        Node<T> next = head.next;
+        if (next == null) {
+            return null;
+        }
+
+        T item = next.item;
+        next.item = null;
+        head = next;
+        return item;
+    }
+
+    /**
+     * Gets whether there is nothing to poll.
+     * @return whether the queue is empty
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    private static class Node<T> {
+        private T item;
+        private volatile Node<T> next;
+
+        private Node(T item) {
+            this.item = item;
+        }
+    }
+}
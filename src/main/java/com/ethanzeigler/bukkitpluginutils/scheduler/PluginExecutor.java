@@ -0,0 +1,68 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * An {@link Executor} view of one of a plugin's execution contexts, such as its main thread or its async executor, so
+ * {@link java.util.concurrent.CompletableFuture} pipelines can move between them with the {@code *Async} methods.
+ * Anything a task throws is logged rather than lost. Once the view is closed, which happens when the plugin is
+ * disabled, tasks are rejected so pipelines stop instead of touching a disabled plugin.
+ */
+public class PluginExecutor implements Executor {
+    private final Plugin plugin;
+    private final String name;
+    private final Consumer<Runnable> target;
+    private volatile boolean isClosed;
+
+    /**
+     * A new view
+     * @param plugin the plugin whose logger failures are logged to
+     * @param name the name of the context, used in log messages
+     * @param target hands tasks to the context
+     */
+    public PluginExecutor(Plugin plugin, String name, Consumer<Runnable> target) {
+        this.plugin = plugin;
+        this.name = name;
+        this.target = target;
+    }
+
+    /**
+     * Runs the task in this view's context.
+     * @param task the task to run
+     * @throws RejectedExecutionException if the view has been closed
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (isClosed) {
+            throw new RejectedExecutionException(plugin.getName() + " is disabled");
+        }
+
+        target.accept(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                plugin.getLogger().log(Level.SEVERE, "A task on the " + name + " threw an exception", t);
+            }
+        });
+    }
+
+    /**
+     * Rejects every task from now on.
+     */
+    public void close() {
+        isClosed = true;
+    }
+
+    /**
+     * Gets whether tasks are being rejected.
+     * @return whether the view is closed
+     */
+    public boolean isClosed() {
+        return isClosed;
+    }
+}
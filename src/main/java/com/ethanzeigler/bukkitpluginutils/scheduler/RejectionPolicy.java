@@ -0,0 +1,25 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+/**
+ * What an {@link AsyncExecutor} does with a task when its queue is full.
+ */
+public enum RejectionPolicy {
+    /**
+     * Runs the task on the thread that submitted it, which slows down whatever is submitting too much. Tasks submitted
+     * from the main thread are handed to Bukkit's async scheduler instead, which starts a thread for each task when
+     * none is free. The bound therefore only holds for other threads: a main thread that keeps submitting to a full
+     * executor is limited by nothing. Use {@link #DROP} or {@link #BLOCK} where the bound must always hold.
+     */
+    CALLER_RUNS,
+    /**
+     * Discards the task. Dropped tasks are counted, and futures BPU returns for them fail with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    DROP,
+    /**
+     * Waits for room in the queue, up to the executor's timeout, then throws a
+     * {@link java.util.concurrent.RejectedExecutionException}. Tasks submitted from the main thread are rejected
+     * without waiting.
+     */
+    BLOCK
+}
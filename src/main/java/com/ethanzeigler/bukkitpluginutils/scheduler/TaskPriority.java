@@ -0,0 +1,11 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+/**
+ * How urgently a task queued on a {@link TickBudgetedExecutor} should run. Higher priority tasks always run first, so
+ * lower priority work is what gets carried over to later ticks when the budget runs out.
+ */
+public enum TaskPriority {
+    HIGH,
+    NORMAL,
+    LOW
+}
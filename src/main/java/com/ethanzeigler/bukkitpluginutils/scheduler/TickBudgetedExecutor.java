@@ -0,0 +1,185 @@
+package com.ethanzeigler.bukkitpluginutils.scheduler;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Runs queued work on the main thread without letting it take more than a set amount of time each tick. A single
+ * repeating task drains the queue once a tick, highest priority first, until the budget is spent; whatever is left
+ * waits for the next tick. At least one task runs every tick, so a task longer than the budget still runs.
+ *
+ * <p>Tasks may be queued from any thread.</p>
+ */
+public class TickBudgetedExecutor implements Executor {
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    private final Plugin plugin;
+    private final long budgetNanos;
+    private final MpscQueue<Runnable>[] queues;
+    private final AtomicInteger[] depths;
+    private BukkitTask drainTask;
+
+    private final AtomicLong tasksRun = new AtomicLong();
+    private final AtomicLong nanosSpent = new AtomicLong();
+    private final AtomicLong carriedOverTicks = new AtomicLong();
+    private volatile long lastTickNanos;
+
+    /**
+     * A new executor. Nothing runs until {@link #start()} is called.
+     * @param plugin the plugin to schedule the drain task for
+     * @param budgetMicros the most time to spend on queued work each tick, in microseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TickBudgetedExecutor(Plugin plugin, long budgetMicros) {
+        this.plugin = plugin;
+        this.budgetNanos = budgetMicros * 1000;
+        this.queues = new MpscQueue[PRIORITIES.length];
+        this.depths = new AtomicInteger[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            queues[i] = new MpscQueue<>();
+            depths[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Starts draining the queue every tick. Must be called from the main thread.
+     */
+    public void start() {
+        drainTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::drain, 1, 1);
+    }
+
+    /**
+     * Stops the drain task and runs everything still queued, ignoring the budget. Must be called from the main
+     * thread.
+     */
+    public void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        drain(Long.MAX_VALUE);
+    }
+
+    /**
+     * Queues the task with {@link TaskPriority#NORMAL normal} priority.
+     * @param task the task to run on the main thread
+     */
+    @Override
+    public void execute(Runnable task) {
+        submit(task, TaskPriority.NORMAL);
+    }
+
+    /**
+     * Queues the task to run on the main thread once the budget allows.
+     * @param task the task to run
+     * @param priority how urgently it should run
+     */
+    public void submit(Runnable task, TaskPriority priority) {
+        depths[priority.ordinal()].incrementAndGet();
+        queues[priority.ordinal()].offer(task);
+    }
+
+    private void drain() {
+        drain(budgetNanos);
+    }
+
+    private void drain(long budget) {
+        long start = System.nanoTime();
+        long elapsed = 0;
+        boolean hasRunAny = false;
+        Runnable task;
+        while ((!hasRunAny || elapsed < budget) && (task = poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                plugin.getLogger().log(Level.SEVERE, "A queued main thread task threw an exception", t);
+            }
+            hasRunAny = true;
+            tasksRun.incrementAndGet();
+            elapsed = System.nanoTime() - start;
+        }
+
+        lastTickNanos = elapsed;
+        nanosSpent.addAndGet(elapsed);
+        if (getQueueDepth() > 0) {
+            carriedOverTicks.incrementAndGet();
+        }
+    }
+
+    private Runnable poll() {
+        for (int i = 0; i < queues.length; i++) {
+            Runnable task = queues[i].poll();
+            if (task != null) {
+                depths[i].decrementAndGet();
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of tasks waiting to run.
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (AtomicInteger priorityDepth : depths) {
+            depth += priorityDepth.get();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets the number of tasks of one priority waiting to run.
+     * @param priority the priority
+     * @return the queue depth of the priority
+     */
+    public int getQueueDepth(TaskPriority priority) {
+        return depths[priority.ordinal()].get();
+    }
+
+    /**
+     * Gets the number of tasks run.
+     * @return the number of tasks run
+     */
+    public long getTasksRun() {
+        return tasksRun.get();
+    }
+
+    /**
+     * Gets the total time spent running queued tasks.
+     * @return the time spent in nanoseconds
+     */
+    public long getNanosSpent() {
+        return nanosSpent.get();
+    }
+
+    /**
+     * Gets the time spent running queued tasks in the last tick.
+     * @return the last tick's time in nanoseconds
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    /**
+     * Gets the number of ticks that ran out of budget and left tasks for the next tick.
+     * @return the number of carried over ticks
+     */
+    public long getCarriedOverTicks() {
+        return carriedOverTicks.get();
+    }
+
+    /**
+     * Gets the most time spent on queued work each tick.
+     * @return the budget in microseconds
+     */
+    public long getBudgetMicros() {
+        return budgetNanos / 1000;
+    }
+}
@@ -20,7 +20,7 @@ public class UpdateNotifier implements Listener {
 
     private BukkitUtilPlugin plugin;
     private boolean isARemoteUpdate = false;
-    private boolean hasFileUpdated = false;
+    private volatile boolean hasFileUpdated = false;
     private int taskId;
     private List<UUID> notifiedOfFileUpdate = new ArrayList<>();
     private List<UUID> notifiedOfRemoteUpdate = new ArrayList<>();
@@ -37,18 +37,22 @@ public class UpdateNotifier implements Listener {
 
         // remote update, if enabled
         if (plugin.getBPUOptions().isUpdateCheckOn()) {
+            Runnable check = plugin.getSchedulerMetrics().wrapRepeating("UpdateNotifier", this::checkForRemoteUpdates);
             taskId = plugin.getServer().getScheduler().scheduleSyncRepeatingTask(
-                    plugin, () -> checkForRemoteUpdates(), 0, plugin.getBPUOptions().getTicksBetweenUpdateChecks());
+                    plugin, check, 0, plugin.getBPUOptions().getTicksBetweenUpdateChecks());
         }
 
 
-        // file update, if enabled
+        // file update, if enabled. The utils file is read in the background so it does not slow down startup.
         if (plugin.getBPUOptions().isUpdateInstalledMessageOn()) {
-            hasFileUpdated = hasFileUpdated();
-            if (hasFileUpdated) {
-                Bukkit.broadcast(plugin.getBPUOptions().getUpdateInstalledMessage() + plugin.getBPUOptions().getChangelog()
-                        , plugin.getBPUOptions().getUpdateAlertPermission());
-            }
+            plugin.trackFuture(plugin.supplyAsynchronously(this::hasFileUpdated).thenAcceptAsync(hasUpdated -> {
+                if (hasUpdated) {
+                    hasFileUpdated = true;
+                    Bukkit.broadcast(plugin.getBPUOptions().getUpdateInstalledMessage()
+                            + plugin.getBPUOptions().getChangelog(),
+                            plugin.getBPUOptions().getUpdateAlertPermission());
+                }
+            }, plugin.getMainThreadExecutor()));
         }
     }
 
@@ -83,17 +87,15 @@ public class UpdateNotifier implements Listener {
      * will be alerted.
      */
     public void checkForRemoteUpdates() {
-        plugin.runAsynchronously(() -> {
-            UpdateCallback callback = RemoteUpdateChecker.updateCheck(plugin);
-
-            if (callback.isAnUpdate()) {
-                plugin.getServer().getScheduler().cancelTask(taskId);
-                plugin.runSynchronously(() -> {
-                    Bukkit.broadcast(plugin.getBPUOptions().getUpdateAvailableMessage(),
-                            plugin.getBPUOptions().getUpdateAlertPermission());
-                });
-            }
-        });
+        plugin.trackFuture(plugin.supplyAsynchronously(() -> RemoteUpdateChecker.updateCheck(plugin))
+                .thenAcceptAsync(callback -> {
+                    if (callback.isAnUpdate()) {
+                        isARemoteUpdate = true;
+                        plugin.getServer().getScheduler().cancelTask(taskId);
+                        Bukkit.broadcast(plugin.getBPUOptions().getUpdateAvailableMessage(),
+                                plugin.getBPUOptions().getUpdateAlertPermission());
+                    }
+                }, plugin.getMainThreadExecutor()));
     }
 
 
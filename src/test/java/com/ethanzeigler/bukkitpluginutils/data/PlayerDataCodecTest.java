@@ -0,0 +1,127 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerDataCodecTest {
+    private static final PlayerDataCodec YAML = new YamlPlayerDataCodec();
+    private static final PlayerDataCodec BINARY = new BinaryPlayerDataCodec();
+    private static final PlayerDataCodec COMPRESSED_BINARY = new BinaryPlayerDataCodec(true, 16);
+
+    @Test
+    public void yamlRoundTripKeepsNestedSectionsAndLists() throws Exception {
+        assertRoundTrip(YAML, YAML);
+    }
+
+    @Test
+    public void binaryRoundTripKeepsNestedSectionsAndLists() throws Exception {
+        assertRoundTrip(BINARY, BINARY);
+    }
+
+    @Test
+    public void compressedBinaryRoundTripKeepsNestedSectionsAndLists() throws Exception {
+        assertRoundTrip(COMPRESSED_BINARY, COMPRESSED_BINARY);
+    }
+
+    @Test
+    public void yamlCodecReadsBinaryData() throws Exception {
+        assertRoundTrip(BINARY, YAML);
+        assertRoundTrip(COMPRESSED_BINARY, YAML);
+    }
+
+    @Test
+    public void binaryCodecReadsYamlData() throws Exception {
+        assertRoundTrip(YAML, BINARY);
+    }
+
+    @Test
+    public void binaryDataIsDetected() throws Exception {
+        TrackedConfiguration file = createFile();
+        assertTrue(BinaryPlayerDataCodec.isBinary(BINARY.encode(file)));
+        assertTrue(BinaryPlayerDataCodec.isBinary(COMPRESSED_BINARY.encode(file)));
+        assertFalse(BinaryPlayerDataCodec.isBinary(YAML.encode(file)));
+    }
+
+    @Test
+    public void decodedFilesHaveNoUnsavedChanges() throws Exception {
+        TrackedConfiguration file = createFile();
+        assertFalse(YAML.decode(YAML.encode(file)).isDirty());
+        assertFalse(BINARY.decode(BINARY.encode(file)).isDirty());
+    }
+
+    @Test
+    public void partialDecodeReadsOnlyTheGivenPaths() throws Exception {
+        TrackedConfiguration file = createFile();
+        for (PlayerDataCodec codec : Arrays.asList(YAML, BINARY, COMPRESSED_BINARY)) {
+            TrackedConfiguration decoded = codec.decode(codec.encode(file),
+                    new HashSet<>(Arrays.asList("stats.kills", "homes")));
+            assertEquals(12, decoded.getInt("stats.kills"));
+            assertNull(decoded.get("stats.deaths"));
+            assertNull(decoded.get("name"));
+            assertEquals(3, decoded.getInt("homes.spawn.y"));
+            assertEquals("world", decoded.getString("homes.spawn.world"));
+        }
+    }
+
+    @Test
+    public void encodingASectionEncodesOnlyItsValues() throws Exception {
+        TrackedConfiguration file = createFile();
+        ConfigurationSection homes = file.getConfigurationSection("homes");
+        for (PlayerDataCodec codec : Arrays.asList(YAML, BINARY)) {
+            TrackedConfiguration decoded = codec.decode(codec.encode(homes));
+            assertEquals(Collections.singleton("spawn"), decoded.getKeys(false));
+            assertEquals(-7, decoded.getInt("spawn.z"));
+        }
+    }
+
+    private static void assertRoundTrip(PlayerDataCodec encoder, PlayerDataCodec decoder) throws Exception {
+        TrackedConfiguration file = createFile();
+        TrackedConfiguration decoded = decoder.decode(encoder.encode(file));
+        assertEquals(getLeaves(file), getLeaves(decoded));
+        assertTrue(decoded.isConfigurationSection("homes.spawn"));
+        assertEquals(Arrays.asList("first", "second"), decoded.getStringList("tags"));
+    }
+
+    /**
+     * Gets every value that is not a section by its full path, which is how two files are compared.
+     */
+    private static Map<String, Object> getLeaves(ConfigurationSection section) {
+        Map<String, Object> leaves = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+            if (!(entry.getValue() instanceof ConfigurationSection)) {
+                leaves.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return leaves;
+    }
+
+    private static TrackedConfiguration createFile() {
+        TrackedConfiguration file = new TrackedConfiguration();
+        file.set("name", "Notch");
+        file.set("balance", 10.5);
+        file.set("joins", 3000000000L);
+        file.set("banned", false);
+        file.set("stats.kills", 12);
+        file.set("stats.deaths", 4);
+        file.set("homes.spawn.world", "world");
+        file.set("homes.spawn.x", 1);
+        file.set("homes.spawn.y", 3);
+        file.set("homes.spawn.z", -7);
+        file.set("tags", Arrays.asList("first", "second"));
+        file.set("scores", Arrays.asList(1, 2, 3));
+        file.set("empty", Collections.emptyList());
+        return file;
+    }
+}
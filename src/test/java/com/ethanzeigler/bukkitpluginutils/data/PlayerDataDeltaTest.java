@@ -0,0 +1,120 @@
+package com.ethanzeigler.bukkitpluginutils.data;
+
+import com.ethanzeigler.bukkitpluginutils.config.TrackedConfiguration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerDataDeltaTest {
+    private File file;
+
+    @Before
+    public void createFile() throws Exception {
+        file = Files.createTempFile("player-data", ".dat").toFile();
+        Files.delete(file.toPath());
+    }
+
+    @After
+    public void deleteFile() throws Exception {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    public void replayedSectionsAreSections() throws Exception {
+        for (PlayerDataCodec codec : Arrays.asList(new YamlPlayerDataCodec(), new BinaryPlayerDataCodec())) {
+            TrackedConfiguration player = createPlayer();
+            TrackedConfiguration replayed = codec.decode(codec.encode(player));
+
+            player.createSection("homes.base").set("world", "nether");
+            player.set("homes.base.x", 40);
+            player.set("stats.kills", 13);
+            player.set("stats.streak.best", 5);
+            player.set("name", null);
+            PlayerDataDelta.apply(codec, PlayerDataDelta.encode(codec, player.getChanges()), replayed);
+
+            assertTrue(replayed.isConfigurationSection("homes.base"));
+            assertTrue(replayed.isConfigurationSection("stats.streak"));
+            assertEquals("nether", replayed.getString("homes.base.world"));
+            assertEquals(40, replayed.getInt("homes.base.x"));
+            assertEquals(5, replayed.getInt("stats.streak.best"));
+            assertNull(replayed.get("name"));
+            assertEquals(getLeaves(player), getLeaves(replayed));
+        }
+    }
+
+    @Test
+    public void replacedSectionsDropTheirOldValues() throws Exception {
+        PlayerDataCodec codec = new BinaryPlayerDataCodec();
+        TrackedConfiguration player = createPlayer();
+        TrackedConfiguration replayed = codec.decode(codec.encode(player));
+
+        player.createSection("homes").set("spawn.world", "end");
+        PlayerDataDelta.apply(codec, PlayerDataDelta.encode(codec, player.getChanges()), replayed);
+
+        assertEquals("end", replayed.getString("homes.spawn.world"));
+        assertNull(replayed.get("homes.spawn.x"));
+        assertEquals(getLeaves(player), getLeaves(replayed));
+    }
+
+    @Test
+    public void storedDeltasAreReplayedOnRead() throws Exception {
+        PlayerDataCodec codec = new BinaryPlayerDataCodec();
+        UUID id = UUID.randomUUID();
+        TrackedConfiguration player = createPlayer();
+
+        IndexedPlayerDataStore store = new IndexedPlayerDataStore(file);
+        store.write(id, codec.encode(player));
+        player.markClean();
+        player.set("homes.base.world", "nether");
+        store.writeDelta(id, PlayerDataDelta.encode(codec, player.getChanges()));
+        player.markClean();
+        player.getConfigurationSection("homes.base").set("y", 64);
+        store.writeDelta(id, PlayerDataDelta.encode(codec, player.getChanges()));
+        store.close();
+
+        store = new IndexedPlayerDataStore(file);
+        try {
+            TrackedConfiguration read = PlayerDataDelta.read(store, codec, id);
+            assertTrue(read.isConfigurationSection("homes.base"));
+            assertEquals(64, read.getInt("homes.base.y"));
+            assertEquals(getLeaves(player), getLeaves(read));
+            assertFalse(read.isDirty());
+        } finally {
+            store.close();
+        }
+    }
+
+    private static Map<String, Object> getLeaves(ConfigurationSection section) {
+        Map<String, Object> leaves = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : section.getValues(true).entrySet()) {
+            if (!(entry.getValue() instanceof ConfigurationSection)) {
+                leaves.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return leaves;
+    }
+
+    private static TrackedConfiguration createPlayer() {
+        TrackedConfiguration player = new TrackedConfiguration();
+        player.set("name", "Notch");
+        player.set("stats.kills", 12);
+        player.set("homes.spawn.world", "world");
+        player.set("homes.spawn.x", 1);
+        player.set("tags", Arrays.asList("first", "second"));
+        player.markClean();
+        return player;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ethanzeigler.bukkitpluginutils.language;
+
+import org.junit.Test;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MessageTemplateTest {
+    private static final Date DATE = new Date(1476700000000L);
+
+    @Test
+    public void quotingMatchesMessageFormat() {
+        assertSameOutput("It''s {0}", "Steve");
+        assertSameOutput("'{0}' is {0}", "Steve");
+        assertSameOutput("'{'{0}'}'", "Steve");
+        assertSameOutput("'It''s' {0}", "Steve");
+        assertSameOutput("don't {0}", "Steve");
+        assertSameOutput("{0,number,'#'#}", 7);
+    }
+
+    @Test
+    public void strayBracesMatchMessageFormat() {
+        assertSameOutput("a } b {0}", "x");
+        assertSameOutput("}{0}}", "x");
+        assertSameOutput("'}' } {0}", "x");
+        assertEquals("a } b x", MessageTemplate.compile("a } b {0}", Locale.US).format("x"));
+    }
+
+    @Test
+    public void typedArgumentsMatchMessageFormat() {
+        for (Locale locale : new Locale[]{Locale.US, Locale.GERMANY}) {
+            assertSameOutput(locale, "{0,number,#.##} coins", 1234.5678);
+            assertSameOutput(locale, "{0,number,integer} kills", 1234567);
+            assertSameOutput(locale, "{0,number,percent}", 0.25);
+            assertSameOutput(locale, "{0,date,yyyy-MM-dd} at {0,time,short}", DATE);
+            assertSameOutput(locale, "{0,choice,0#no items|1#one item|1<{0,number,integer} items}", 0);
+            assertSameOutput(locale, "{0,choice,0#no items|1#one item|1<{0,number,integer} items}", 1);
+            assertSameOutput(locale, "{0,choice,0#no items|1#one item|1<{0,number,integer} items}", 2500);
+        }
+    }
+
+    @Test
+    public void plainArgumentsMatchMessageFormat() {
+        for (Locale locale : new Locale[]{Locale.US, Locale.GERMANY}) {
+            assertSameOutput(locale, "{0} {1} {2} {3} {4}", 1234.5, DATE, "text", Locale.CANADA, null);
+        }
+    }
+
+    @Test
+    public void missingArgumentsMatchMessageFormat() {
+        assertSameOutput("{0} and {3}", "one");
+        assertSameOutput("{1}");
+        assertEquals(new MessageFormat("{0} and {1}", Locale.US).format(null),
+                MessageTemplate.compile("{0} and {1}", Locale.US).format((Object[]) null));
+    }
+
+    @Test
+    public void invalidPatternsAreRejected() {
+        for (String pattern : new String[]{"{0", "a {0,number", "{x}", "{-1}"}) {
+            try {
+                new MessageFormat(pattern, Locale.US);
+                fail("MessageFormat accepted " + pattern);
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                MessageTemplate.compile(pattern, Locale.US);
+                fail("MessageTemplate accepted " + pattern);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void argumentsCanFormatOtherTemplates() {
+        MessageTemplate inner = MessageTemplate.compile("[{0}]", Locale.US);
+        Object nested = new Object() {
+            @Override
+            public String toString() {
+                return inner.format("inner");
+            }
+        };
+
+        assertEquals("outer [inner] end", MessageTemplate.compile("outer {0} end", Locale.US).format(nested));
+    }
+
+    private static void assertSameOutput(String pattern, Object... arguments) {
+        assertSameOutput(Locale.US, pattern, arguments);
+    }
+
+    private static void assertSameOutput(Locale locale, String pattern, Object... arguments) {
+        assertEquals(pattern, new MessageFormat(pattern, locale).format(arguments),
+                MessageTemplate.compile(pattern, locale).format(arguments));
+    }
+}
@@ -0,0 +1,64 @@
+package com.ethanzeigler.bukkitpluginutils.language;
+
+/**
+ * Compares filling a message's placeholders in a single pass with {@link PlaceholderMessage} against replacing each
+ * one with {@link String#replace(CharSequence, CharSequence)}, as the deprecated
+ * {@link LanguageManager#getMessageAndReplace(String, java.util.Map.Entry[])} does, for messages with 5 and 10
+ * placeholders. It is not run with the tests; run its main method directly.
+ */
+public class PlaceholderBenchmark {
+    private static final int ITERATIONS = 500000;
+    private static final int WARM_UP_ROUNDS = 2;
+
+    public static void main(String[] args) {
+        for (int count : new int[]{5, 10}) {
+            run(count);
+        }
+    }
+
+    private static void run(int count) {
+        StringBuilder text = new StringBuilder("&6[Shop] ");
+        String[] names = new String[count];
+        String[] values = new String[count];
+        Object[] pairs = new Object[count * 2];
+        for (int i = 0; i < count; i++) {
+            text.append("field ").append(i).append(" is %p").append(i).append("% and ");
+            names[i] = "%p" + i + "%";
+            values[i] = String.valueOf(i * 31);
+            pairs[2 * i] = names[i];
+            pairs[2 * i + 1] = i * 31;
+        }
+        String message = text.toString();
+        PlaceholderMessage parsed = PlaceholderMessage.parse(message);
+
+        if (!replaceEach(message, names, values).equals(parsed.fill(Placeholders.of(pairs)))) {
+            throw new IllegalStateException("The two ways of filling the message disagree");
+        }
+
+        long sink = 0;
+        long replaceNanos = 0;
+        long singlePassNanos = 0;
+        for (int round = 0; round <= WARM_UP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += replaceEach(message, names, values).length();
+            }
+            long middle = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += parsed.fill(Placeholders.of(pairs)).length();
+            }
+            replaceNanos = middle - start;
+            singlePassNanos = System.nanoTime() - middle;
+        }
+
+        System.out.printf("%d placeholders: String.replace %.0f ns/op, single pass %.0f ns/op (%d)%n", count,
+                (double) replaceNanos / ITERATIONS, (double) singlePassNanos / ITERATIONS, sink % 7);
+    }
+
+    private static String replaceEach(String message, String[] names, String[] values) {
+        for (int i = 0; i < names.length; i++) {
+            message = message.replace(names[i], values[i]);
+        }
+        return message;
+    }
+}